@@ -1,27 +1,33 @@
 package com.innowise.authservice.config;
 
-import io.jsonwebtoken.io.Decoders;
-import org.apache.commons.codec.digest.HmacAlgorithms;
-import org.apache.commons.codec.digest.HmacUtils;
-import org.springframework.beans.factory.annotation.Value;
+import com.innowise.authservice.security.AdaptiveBCryptPasswordEncoder;
+import com.innowise.authservice.security.BCryptStrengthCalibrator;
+import com.innowise.authservice.security.BoundedPasswordEncoder;
+import com.innowise.authservice.security.PasswordProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 @Configuration
 public class EncoderConfig {
-
-    @Value("${spring.security.jwt.secret}")
-    private String jwtSecret;
+    private static final String BCRYPT_ID = "bcrypt";
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+    public PasswordEncoder passwordEncoder(PasswordProperties properties, MeterRegistry meterRegistry) {
+        int strength = properties.isCalibrate()
+                ? BCryptStrengthCalibrator.calibrate(
+                        properties.getTargetLatency(), properties.getMinStrength(), properties.getMaxStrength())
+                : properties.getStrength();
+        // Calibrated costs can differ between nodes, so only a fixed cost may also lower existing hashes
+        var bcrypt = new AdaptiveBCryptPasswordEncoder(strength, properties.isCalibrate());
 
-    @Bean
-    public HmacUtils hmacUtils() {
-        return new HmacUtils(HmacAlgorithms.HMAC_SHA_256, Decoders.BASE64.decode(jwtSecret));
+        // New hashes are stored as {bcrypt}<hash>; hashes stored before the prefix was introduced are plain BCrypt
+        var delegating = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new BoundedPasswordEncoder(delegating, properties, meterRegistry);
     }
 }
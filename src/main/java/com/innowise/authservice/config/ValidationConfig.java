@@ -0,0 +1,32 @@
+package com.innowise.authservice.config;
+
+import com.innowise.authservice.security.JwtProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ValidationConfig {
+    /**
+     * Workers verifying chunks of large token batches in parallel. The queue is bounded, so under overload
+     * submitting a chunk fails with a {@link java.util.concurrent.RejectedExecutionException} instead of
+     * piling up work.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService tokenValidationExecutor(JwtProperties properties, MeterRegistry meterRegistry) {
+        var batchValidation = properties.getBatchValidation();
+        var executor = new ThreadPoolExecutor(
+                batchValidation.getPoolSize(), batchValidation.getPoolSize(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchValidation.getQueueCapacity()),
+                new CustomizableThreadFactory("token-validation-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "tokenValidation");
+    }
+}
@@ -0,0 +1,25 @@
+package com.innowise.authservice.config;
+
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * Active with {@code spring.threads.virtual.enabled=true} on Java 21 or later, where Spring Boot already
+ * runs Tomcat requests on virtual threads. Blocking JDBC calls are then bounded by the Hikari pool and
+ * password hashing by its own worker pool rather than by the number of request threads.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    /**
+     * Runs gRPC calls on virtual threads instead of the default cached thread pool.
+     */
+    @Bean
+    public GrpcServerConfigurer virtualThreadGrpcServerConfigurer() {
+        return serverBuilder -> serverBuilder.executor(new VirtualThreadTaskExecutor("grpc-"));
+    }
+}
@@ -1,7 +1,9 @@
 package com.innowise.authservice.controller;
 
 import com.innowise.authservice.dto.*;
+import com.innowise.authservice.security.LoginThrottle;
 import com.innowise.authservice.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -17,9 +19,12 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
 
     private final AuthService authService;
+    private final LoginThrottle loginThrottle;
 
     @PostMapping("/credentials")
-    public ResponseEntity<ApiResponse<CredentialsResponse>> saveCredentials(@Valid @RequestBody SaveCredentialsRequest request) {
+    public ResponseEntity<ApiResponse<CredentialsResponse>> saveCredentials(@Valid @RequestBody SaveCredentialsRequest request,
+                                                                            HttpServletRequest servletRequest) {
+        loginThrottle.acquire(LoginThrottle.Operation.SIGNUP, request.email(), servletRequest.getRemoteAddr());
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(ApiResponse.success("User successfully signed up", authService.saveCredentials(request)));
@@ -27,7 +32,8 @@ public class AuthController {
 
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<AuthResponse>> createToken(
-            @Valid @RequestBody LoginRequest request) {
+            @Valid @RequestBody LoginRequest request, HttpServletRequest servletRequest) {
+        loginThrottle.acquire(LoginThrottle.Operation.LOGIN, request.email(), servletRequest.getRemoteAddr());
         return ResponseEntity.ok(
                 ApiResponse.success("User successfully logged in", authService.login(request))
         );
@@ -46,4 +52,12 @@ public class AuthController {
                 ApiResponse.success("Token successfully refreshed", authService.refresh(request))
         );
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(@Valid @RequestBody LogoutRequest request) {
+        authService.logout(request);
+        return ResponseEntity.ok(
+                ApiResponse.success("User successfully logged out", null)
+        );
+    }
 }
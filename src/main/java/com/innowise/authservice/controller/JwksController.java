@@ -0,0 +1,30 @@
+package com.innowise.authservice.controller;
+
+import com.innowise.authservice.security.JwtProperties;
+import com.innowise.authservice.security.JwtTokenProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Publishes the public signing keys so consumers can verify tokens locally instead of calling the service.
+ * Responses carry an ETag, so a consumer revalidating its cached copy gets a 304 while the keys are unchanged.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+    private final JwtTokenProvider jwtTokenProvider;
+    private final JwtProperties jwtProperties;
+
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks() {
+        var jsonWebKeySet = jwtTokenProvider.jsonWebKeySet();
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(jwtProperties.getSigning().getJwksMaxAge()).cachePublic())
+                .eTag(jsonWebKeySet.eTag())
+                .body(jsonWebKeySet.json());
+    }
+}
@@ -0,0 +1,20 @@
+package com.innowise.authservice.dto;
+
+import java.util.Locale;
+
+/**
+ * Normalizes email addresses so that the same mailbox is stored, looked up and throttled under one key.
+ * Emails in the users table are stored normalized, which keeps lookups on the unique email index.
+ */
+public final class Emails {
+    private Emails() {
+    }
+
+    /**
+     * @param email the email as entered, may be null
+     * @return the email without surrounding whitespace and in lower case, or null if it was null
+     */
+    public static String normalize(String email) {
+        return email == null ? null : email.strip().toLowerCase(Locale.ROOT);
+    }
+}
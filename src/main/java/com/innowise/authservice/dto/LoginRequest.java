@@ -15,4 +15,7 @@ public record LoginRequest(
         @NotBlank(message = "Password is required")
         String password
 ) {
+    public LoginRequest {
+        email = Emails.normalize(email);
+    }
 }
@@ -0,0 +1,11 @@
+package com.innowise.authservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public record LogoutRequest(
+        @NotBlank(message = "Access token cannot be blank")
+        String accessToken,
+        @NotBlank(message = "Refresh token cannot be blank")
+        String refreshToken
+) {
+}
@@ -16,4 +16,7 @@ public record SaveCredentialsRequest(
         @NotBlank(message = "Password is required")
         String password
 ) {
+    public SaveCredentialsRequest {
+        email = Emails.normalize(email);
+    }
 }
@@ -21,12 +21,12 @@ public class RefreshToken {
     @GeneratedValue
     private UUID id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
     @Column(name = "token_hash", nullable = false, unique = true)
-    private String tokenHash;
+    private byte[] tokenHash;
 
     @Column(name = "expires_at", nullable = false)
     private Instant expiresAt;
@@ -0,0 +1,9 @@
+package com.innowise.authservice.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class PasswordHashingUnavailableException extends ApiException {
+    public PasswordHashingUnavailableException() {
+        super("Service is busy, please try again later", HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
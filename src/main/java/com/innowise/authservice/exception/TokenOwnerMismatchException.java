@@ -0,0 +1,9 @@
+package com.innowise.authservice.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class TokenOwnerMismatchException extends ApiException {
+    public TokenOwnerMismatchException() {
+        super("Access and refresh tokens belong to different users!", HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,16 @@
+package com.innowise.authservice.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+@Getter
+public class TooManyAttemptsException extends ApiException {
+    private final Duration retryAfter;
+
+    public TooManyAttemptsException(Duration retryAfter) {
+        super("Too many attempts, please try again later", HttpStatus.TOO_MANY_REQUESTS);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -2,8 +2,10 @@ package com.innowise.authservice.exception.handler;
 
 import com.innowise.authservice.dto.ApiResponse;
 import com.innowise.authservice.exception.ApiException;
+import com.innowise.authservice.exception.TooManyAttemptsException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.MessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -29,6 +31,17 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(e.getMessage()));
     }
 
+    @ExceptionHandler(TooManyAttemptsException.class)
+    public ResponseEntity<ApiResponse<Void>> handleTooManyAttempts(TooManyAttemptsException e) {
+        log.debug("Attempt throttled. Retry after: {}", e.getRetryAfter());
+        // Retry-After has second precision, round up so a client retrying on time is not throttled again
+        var retryAfterSeconds = e.getRetryAfter().plusNanos(999_999_999).toSeconds();
+        return ResponseEntity
+                .status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(ApiResponse.error(e.getMessage()));
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<List<String>>> handleValidationException(MethodArgumentNotValidException e) {
         log.debug("Validation exception occurred: {}", e.getMessage());
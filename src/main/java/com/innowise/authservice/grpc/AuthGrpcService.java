@@ -2,20 +2,35 @@ package com.innowise.authservice.grpc;
 
 import com.innowise.authservice.generated.AuthServiceGrpc;
 import com.innowise.authservice.generated.Auth;
+import com.innowise.authservice.security.JwtProperties;
+import com.innowise.authservice.security.TokenVerification;
 import com.innowise.authservice.service.AuthService;
 import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 @GrpcService
 @RequiredArgsConstructor
 @Slf4j
 public class AuthGrpcService extends AuthServiceGrpc.AuthServiceImplBase {
+    /**
+     * IDs a single {@code deleteUsers} call may carry. Larger sets go through {@code deleteUsersStream}.
+     */
+    static final int MAX_DELETE_BATCH_SIZE = 10_000;
+
     private final AuthService authService;
+    private final JwtProperties jwtProperties;
+    private final ExecutorService tokenValidationExecutor;
 
     @Override
     public void deleteUser(Auth.DeleteUserRequest request, StreamObserver<Auth.DeleteUserResponse> responseObserver) {
@@ -39,4 +54,132 @@ public class AuthGrpcService extends AuthServiceGrpc.AuthServiceImplBase {
             responseObserver.onError(status);
         }
     }
+
+    @Override
+    public void deleteUsers(Auth.DeleteUsersRequest request, StreamObserver<Auth.DeleteUsersResponse> responseObserver) {
+        log.debug("Received delete users request with {} IDs", request.getUserIdsCount());
+        if (request.getUserIdsCount() > MAX_DELETE_BATCH_SIZE) {
+            log.debug("Delete users batch of {} IDs rejected", request.getUserIdsCount());
+            var status = Status.INVALID_ARGUMENT
+                    .withDescription("Batch of %d IDs exceeds the limit of %d"
+                            .formatted(request.getUserIdsCount(), MAX_DELETE_BATCH_SIZE))
+                    .asRuntimeException();
+            responseObserver.onError(status);
+            return;
+        }
+        try {
+            var userIds = request.getUserIdsList().stream()
+                    .map(AuthGrpcService::parseUserId)
+                    .filter(Objects::nonNull)
+                    .toList();
+            var deleted = authService.deleteAll(userIds);
+
+            responseObserver.onNext(toDeleteUsersResponse(request.getUserIdsList(), deleted));
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error deleting {} users", request.getUserIdsCount(), e);
+            var status = Status.UNKNOWN.withDescription("Internal server error").asRuntimeException();
+            responseObserver.onError(status);
+        }
+    }
+
+    @Override
+    public StreamObserver<Auth.DeleteUserRequest> deleteUsersStream(
+            StreamObserver<Auth.DeleteUsersResponse> responseObserver) {
+        log.debug("Opening delete users stream");
+        return new UserDeletionStream(responseObserver, authService);
+    }
+
+    @Override
+    public void validateToken(Auth.ValidateTokenRequest request, StreamObserver<Auth.TokenValidation> responseObserver) {
+        log.debug("Received validate token request");
+        try {
+            responseObserver.onNext(toTokenValidation(authService.verify(request.getToken())));
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error validating token", e);
+            var status = Status.UNKNOWN.withDescription("Internal server error").asRuntimeException();
+            responseObserver.onError(status);
+        }
+    }
+
+    @Override
+    public void validateTokens(Auth.ValidateTokensRequest request,
+                               StreamObserver<Auth.ValidateTokensResponse> responseObserver) {
+        log.debug("Received validate tokens request with {} tokens", request.getTokensCount());
+        try {
+            var response = Auth.ValidateTokensResponse.newBuilder();
+            authService.verifyAll(request.getTokensList())
+                    .forEach(verification -> response.addResults(toTokenValidation(verification)));
+
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        } catch (IllegalArgumentException e) {
+            log.debug("Token batch rejected: {}", e.getMessage());
+            var status = Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+            responseObserver.onError(status);
+        } catch (RejectedExecutionException e) {
+            log.debug("Validation pool rejected batch of {} tokens", request.getTokensCount());
+            var status = Status.RESOURCE_EXHAUSTED.withDescription("Service is busy, please try again later")
+                    .asRuntimeException();
+            responseObserver.onError(status);
+        } catch (Exception e) {
+            log.error("Error validating {} tokens", request.getTokensCount(), e);
+            var status = Status.UNKNOWN.withDescription("Internal server error").asRuntimeException();
+            responseObserver.onError(status);
+        }
+    }
+
+    @Override
+    public StreamObserver<Auth.StreamValidateTokenRequest> validateTokenStream(
+            StreamObserver<Auth.StreamTokenValidation> responseObserver) {
+        log.debug("Opening token validation stream");
+        return new TokenValidationStream(
+                (ServerCallStreamObserver<Auth.StreamTokenValidation>) responseObserver,
+                authService,
+                tokenValidationExecutor,
+                jwtProperties.getBatchValidation().getStreamWindow());
+    }
+
+    /**
+     * @return the parsed ID, or null if it is malformed
+     */
+    static UUID parseUserId(String userId) {
+        try {
+            return UUID.fromString(userId);
+        } catch (IllegalArgumentException e) {
+            log.debug("User ID format is incorrect. ID: {}", userId);
+            return null;
+        }
+    }
+
+    static Auth.DeleteUsersResponse toDeleteUsersResponse(List<String> requestedIds, Set<UUID> deleted) {
+        var response = Auth.DeleteUsersResponse.newBuilder();
+        for (var userId : requestedIds) {
+            var parsed = parseUserId(userId);
+            response.addResults(Auth.DeleteUserResult.newBuilder()
+                    .setUserId(userId)
+                    .setSuccess(parsed != null && deleted.contains(parsed)));
+        }
+        return response.build();
+    }
+
+    /**
+     * Only access tokens are valid, as for HTTP {@code /validate}: refresh tokens fail with
+     * {@link TokenVerification.FailureReason#INVALID}, as stateless verification does not see their revocation.
+     */
+    static Auth.TokenValidation toTokenValidation(TokenVerification verification) {
+        var validation = Auth.TokenValidation.newBuilder()
+                .setValid(verification.isAccessToken());
+        if (verification.isAccessToken()) {
+            validation.setSubject(verification.subject())
+                    .setRole(verification.role())
+                    .setExpiresAt(verification.expiresAt().getEpochSecond());
+        } else if (verification.valid()) {
+            validation.setFailureReason(TokenVerification.FailureReason.INVALID.name());
+        } else {
+            validation.setFailureReason(verification.failureReason().name());
+        }
+        return validation.build();
+    }
 }
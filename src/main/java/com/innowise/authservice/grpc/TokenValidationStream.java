@@ -0,0 +1,136 @@
+package com.innowise.authservice.grpc;
+
+import com.innowise.authservice.generated.Auth;
+import com.innowise.authservice.security.TokenVerification;
+import com.innowise.authservice.service.AuthService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Server side of a bidirectional validation stream. Every request is verified on the validation pool and
+ * answered as soon as it is done, so responses can overtake each other and are matched by correlation ID.
+ * <p>
+ * Inbound flow control is manual: at most {@code window} requests are requested ahead, and a new one is only
+ * requested after a response was written while the outbound side is ready. A gateway that stops reading
+ * therefore stops receiving credit and is held back by HTTP/2 flow control instead of filling server memory.
+ */
+@Slf4j
+class TokenValidationStream implements StreamObserver<Auth.StreamValidateTokenRequest> {
+    private final ServerCallStreamObserver<Auth.StreamTokenValidation> responses;
+    private final AuthService authService;
+    private final Executor executor;
+
+    /**
+     * Guards the response observer, which is not thread-safe, and the counters below.
+     */
+    private final Object lock = new Object();
+    private int inFlight;
+    private int deferredRequests;
+    private boolean halfClosed;
+    private boolean closed;
+
+    TokenValidationStream(ServerCallStreamObserver<Auth.StreamTokenValidation> responses,
+                          AuthService authService, Executor executor, int window) {
+        this.responses = responses;
+        this.authService = authService;
+        this.executor = executor;
+        responses.disableAutoRequest();
+        responses.setOnReadyHandler(this::onReady);
+        responses.setOnCancelHandler(this::onCancel);
+        responses.request(window);
+    }
+
+    @Override
+    public void onNext(Auth.StreamValidateTokenRequest request) {
+        synchronized (lock) {
+            inFlight++;
+        }
+        try {
+            executor.execute(() -> respond(request.getCorrelationId(), verify(request.getToken())));
+        } catch (RejectedExecutionException e) {
+            log.debug("Validation pool rejected stream request {}", request.getCorrelationId());
+            fail(Status.RESOURCE_EXHAUSTED.withDescription("Service is busy, please try again later"));
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.debug("Validation stream closed by client: {}", t.getMessage());
+        synchronized (lock) {
+            closed = true;
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        synchronized (lock) {
+            halfClosed = true;
+            completeIfDone();
+        }
+    }
+
+    private TokenVerification verify(String token) {
+        try {
+            return authService.verify(token);
+        } catch (Exception e) {
+            log.error("Error validating streamed token", e);
+            return TokenVerification.failed(TokenVerification.FailureReason.INVALID);
+        }
+    }
+
+    private void respond(long correlationId, TokenVerification verification) {
+        var response = Auth.StreamTokenValidation.newBuilder()
+                .setCorrelationId(correlationId)
+                .setValidation(AuthGrpcService.toTokenValidation(verification))
+                .build();
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            responses.onNext(response);
+            inFlight--;
+            if (responses.isReady()) {
+                responses.request(1);
+            } else {
+                deferredRequests++;
+            }
+            completeIfDone();
+        }
+    }
+
+    private void onReady() {
+        synchronized (lock) {
+            if (!closed && deferredRequests > 0) {
+                responses.request(deferredRequests);
+                deferredRequests = 0;
+            }
+        }
+    }
+
+    private void onCancel() {
+        synchronized (lock) {
+            closed = true;
+        }
+    }
+
+    private void fail(Status status) {
+        synchronized (lock) {
+            if (!closed) {
+                closed = true;
+                responses.onError(status.asRuntimeException());
+            }
+        }
+    }
+
+    private void completeIfDone() {
+        if (halfClosed && inFlight == 0 && !closed) {
+            closed = true;
+            responses.onCompleted();
+        }
+    }
+}
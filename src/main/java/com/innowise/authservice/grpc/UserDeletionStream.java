@@ -0,0 +1,73 @@
+package com.innowise.authservice.grpc;
+
+import com.innowise.authservice.generated.Auth;
+import com.innowise.authservice.service.AuthService;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Server side of a client-streaming deletion. IDs are buffered and deleted a chunk at a time as they
+ * arrive, so the work is spread over the stream and memory only grows with the per-ID results.
+ * gRPC delivers the messages of one call sequentially, so no locking is needed.
+ */
+@Slf4j
+class UserDeletionStream implements StreamObserver<Auth.DeleteUserRequest> {
+    static final int CHUNK_SIZE = 1_000;
+
+    private final StreamObserver<Auth.DeleteUsersResponse> responseObserver;
+    private final AuthService authService;
+
+    private final List<String> requestedIds = new ArrayList<>();
+    private final List<UUID> pending = new ArrayList<>(CHUNK_SIZE);
+    private final Set<UUID> deleted = new HashSet<>();
+
+    UserDeletionStream(StreamObserver<Auth.DeleteUsersResponse> responseObserver, AuthService authService) {
+        this.responseObserver = responseObserver;
+        this.authService = authService;
+    }
+
+    @Override
+    public void onNext(Auth.DeleteUserRequest request) {
+        requestedIds.add(request.getUserId());
+        var userId = AuthGrpcService.parseUserId(request.getUserId());
+        if (userId == null) {
+            return;
+        }
+        pending.add(userId);
+        if (pending.size() >= CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.debug("Delete users stream cancelled by client after {} IDs: {}", requestedIds.size(), t.getMessage());
+    }
+
+    @Override
+    public void onCompleted() {
+        try {
+            flush();
+            responseObserver.onNext(AuthGrpcService.toDeleteUsersResponse(requestedIds, deleted));
+            responseObserver.onCompleted();
+        } catch (Exception e) {
+            log.error("Error deleting {} streamed users", requestedIds.size(), e);
+            var status = Status.UNKNOWN.withDescription("Internal server error").asRuntimeException();
+            responseObserver.onError(status);
+        }
+    }
+
+    private void flush() {
+        if (!pending.isEmpty()) {
+            deleted.addAll(authService.deleteAll(pending));
+            pending.clear();
+        }
+    }
+}
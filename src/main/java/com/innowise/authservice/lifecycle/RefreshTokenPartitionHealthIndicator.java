@@ -0,0 +1,27 @@
+package com.innowise.authservice.lifecycle;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports down while a refresh token issued now could expire on a day without a partition, as its login
+ * would fail. Part of the readiness group, so the instance is taken out of rotation until the maintenance
+ * created the missing partitions.
+ */
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenPartitionHealthIndicator implements HealthIndicator {
+    private final RefreshTokenPartitionMaintainer maintainer;
+
+    @Override
+    public Health health() {
+        var daysAhead = maintainer.daysAhead();
+        var required = maintainer.ttlDays();
+        var health = daysAhead >= required ? Health.up() : Health.down();
+        return health.withDetail("daysAhead", daysAhead)
+                .withDetail("requiredDaysAhead", required)
+                .build();
+    }
+}
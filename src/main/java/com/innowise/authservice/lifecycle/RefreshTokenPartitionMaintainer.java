@@ -0,0 +1,186 @@
+package com.innowise.authservice.lifecycle;
+
+import com.innowise.authservice.repository.RefreshTokenPartitionRepository;
+import com.innowise.authservice.repository.RefreshTokenRepository;
+import com.innowise.authservice.security.JwtProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
+
+/**
+ * Keeps the daily partitions of {@code refresh_tokens} in shape: creates the partitions for the days
+ * tokens issued now can expire on, drops whole partitions whose tokens all expired more than a
+ * refresh token TTL ago, and purges in bounded batches the expired rows left in partitions that are
+ * not dropped yet.
+ * <p>
+ * The maintenance runs once the application is ready and then on a cron. Eureka registers the instance
+ * before that, so it may serve logins before the first run; partitions are created
+ * {@code days-ahead} days beyond the TTL so that earlier runs cover it and one missed run does not
+ * leave a day without a partition. How far ahead partitions exist is exported as
+ * {@code auth.refresh.tokens.partitions.days.ahead} and checked by
+ * {@link RefreshTokenPartitionHealthIndicator}.
+ */
+@Component
+@Slf4j
+public class RefreshTokenPartitionMaintainer {
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final JwtProperties properties;
+    private final RefreshTokenPartitionRepository partitionRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final Counter createdCounter;
+    private final Counter droppedCounter;
+    private final Counter purgedCounter;
+    private final Timer purgeTimer;
+
+    /**
+     * Last day up to which every day from the last run's day on has a partition, null before the first run
+     * or when that day had none.
+     */
+    private volatile LocalDate coveredThrough;
+
+    public RefreshTokenPartitionMaintainer(JwtProperties properties,
+                                           RefreshTokenPartitionRepository partitionRepository,
+                                           RefreshTokenRepository refreshTokenRepository,
+                                           MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.partitionRepository = partitionRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.createdCounter = Counter.builder("auth.refresh.tokens.partitions.created")
+                .description("Refresh token partitions created ahead of time")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("auth.refresh.tokens.partitions.dropped")
+                .description("Expired refresh token partitions dropped")
+                .register(meterRegistry);
+        this.purgedCounter = Counter.builder("auth.refresh.tokens.purged")
+                .description("Expired refresh tokens deleted outside of dropped partitions")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("auth.refresh.tokens.purge")
+                .description("Duration of a full expired refresh token purge")
+                .register(meterRegistry);
+        Gauge.builder("auth.refresh.tokens.partitions.days.ahead", this::daysAhead)
+                .description("Days after today up to which every day has a refresh token partition, -1 if today has none")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${spring.security.jwt.refresh-token-maintenance.cron}")
+    public void maintainPartitions() {
+        var now = Instant.now();
+        var cutoff = now.minus(properties.getRefreshTokenTtl(), ChronoUnit.SECONDS);
+        var existing = new HashSet<>(partitionRepository.findPartitionDays());
+
+        var today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        var lastDay = today.plusDays(ttlDays() + properties.getRefreshTokenMaintenance().getDaysAhead());
+        LocalDate covered = null;
+        var gap = false;
+        for (var day = today; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            var created = existing.contains(day) ? Boolean.FALSE : createPartition(day);
+            if (created == null) {
+                gap = true;
+                continue;
+            }
+            if (created) {
+                createdCounter.increment();
+            }
+            if (!gap) {
+                covered = day;
+            }
+        }
+        coveredThrough = covered;
+
+        // A partition can go once its upper bound (midnight after its day) is not after the cutoff
+        var cutoffDay = LocalDate.ofInstant(cutoff, ZoneOffset.UTC);
+        existing.stream()
+                .filter(day -> day.isBefore(cutoffDay))
+                .sorted()
+                .forEach(day -> {
+                    if (dropPartition(day)) {
+                        droppedCounter.increment();
+                    }
+                });
+
+        long purged = purgeTimer.record(() -> purgeBefore(cutoff));
+        log.info("Refresh token partitions maintained, purged {} leftover expired tokens", purged);
+    }
+
+    /**
+     * @return the days after today up to which every day has a partition, -1 if today has none
+     */
+    public long daysAhead() {
+        var covered = coveredThrough;
+        var today = LocalDate.now(ZoneOffset.UTC);
+        if (covered == null || covered.isBefore(today)) {
+            return -1;
+        }
+        return ChronoUnit.DAYS.between(today, covered);
+    }
+
+    /**
+     * @return the days after today tokens issued now can expire on
+     */
+    public long ttlDays() {
+        return (properties.getRefreshTokenTtl() + SECONDS_PER_DAY - 1) / SECONDS_PER_DAY;
+    }
+
+    /**
+     * @return whether the partition was created, false if it already existed, null if it could not be created
+     */
+    private Boolean createPartition(LocalDate day) {
+        try {
+            return partitionRepository.createPartition(day);
+        } catch (DataAccessException e) {
+            log.error("Could not create refresh token partition for {}", day, e);
+            return null;
+        }
+    }
+
+    private boolean dropPartition(LocalDate day) {
+        try {
+            return partitionRepository.dropPartition(day);
+        } catch (DataAccessException e) {
+            log.warn("Could not drop refresh token partition for {}", day, e);
+            return false;
+        }
+    }
+
+    private long purgeBefore(Instant cutoff) {
+        var maintenance = properties.getRefreshTokenMaintenance();
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = refreshTokenRepository.deleteExpiredBatch(cutoff, maintenance.getBatchSize());
+            purged += deleted;
+            purgedCounter.increment(deleted);
+        } while (deleted == maintenance.getBatchSize() && pause(maintenance.getPause().toMillis()));
+        return purged;
+    }
+
+    private boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            log.debug("Refresh token purge interrupted");
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.innowise.authservice.repository;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manages the daily range partitions of {@code refresh_tokens}. Partition {@code refresh_tokens_pYYYYMMDD}
+ * holds the tokens expiring on that (UTC) day. There is no default partition, as it would prevent detaching
+ * partitions concurrently, so the partition of a day has to exist before tokens expiring on it are issued.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RefreshTokenPartitionRepository {
+    private static final String PARTITION_PREFIX = "refresh_tokens_p";
+    private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "(\\d{8})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    /**
+     * Serializes partition DDL between service instances running the maintenance at the same time.
+     */
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('refresh_tokens_partitions'))";
+    private static final String SESSION_LOCK_SQL = "SELECT pg_advisory_lock(hashtext('refresh_tokens_partitions'))";
+    private static final String SESSION_UNLOCK_SQL =
+            "SELECT pg_advisory_unlock(hashtext('refresh_tokens_partitions'))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the days that currently have their own partition
+     */
+    public List<LocalDate> findPartitionDays() {
+        return jdbcTemplate.queryForList("""
+                        SELECT child.relname
+                        FROM pg_inherits
+                        JOIN pg_class child ON child.oid = pg_inherits.inhrelid
+                        WHERE pg_inherits.inhparent = 'refresh_tokens'::regclass
+                        """, String.class)
+                .stream()
+                .map(PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> LocalDate.parse(matcher.group(1), PARTITION_SUFFIX))
+                .toList();
+    }
+
+    /**
+     * Creates the partition for the given day as a table of its own and attaches it, which only takes a
+     * SHARE UPDATE EXCLUSIVE lock on {@code refresh_tokens} and so does not block logins and refreshes.
+     *
+     * @return false if the partition already existed
+     */
+    @Transactional
+    public boolean createPartition(LocalDate day) {
+        jdbcTemplate.execute(LOCK_SQL);
+        var name = partitionName(day);
+        if (exists(jdbcTemplate, name)) {
+            return false;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE refresh_tokens INCLUDING DEFAULTS)");
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(name, day, day.plusDays(1)));
+        return true;
+    }
+
+    /**
+     * Detaches the partition of the given day concurrently and then drops it together with all its tokens,
+     * so {@code refresh_tokens} is never locked exclusively. A concurrent detach cannot run in a transaction,
+     * so all statements run in autocommit mode on one connection. A detach left pending by an interrupted
+     * earlier run is finalized.
+     *
+     * @return false if there was no such partition
+     */
+    public boolean dropPartition(LocalDate day) {
+        var name = partitionName(day);
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            var jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            jdbc.execute(SESSION_LOCK_SQL);
+            try {
+                if (!exists(jdbc, name)) {
+                    return false;
+                }
+                var detachPending = jdbc.queryForList("""
+                        SELECT inhdetachpending FROM pg_inherits
+                        WHERE inhrelid = ?::regclass AND inhparent = 'refresh_tokens'::regclass
+                        """, Boolean.class, name);
+                if (!detachPending.isEmpty()) {
+                    jdbc.execute("ALTER TABLE refresh_tokens DETACH PARTITION " + name
+                            + (detachPending.get(0) ? " FINALIZE" : " CONCURRENTLY"));
+                }
+                jdbc.execute("DROP TABLE " + name);
+                return true;
+            } finally {
+                jdbc.execute(SESSION_UNLOCK_SQL);
+            }
+        }));
+    }
+
+    private static boolean exists(JdbcTemplate jdbc, String name) {
+        return Boolean.TRUE.equals(jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name));
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + Objects.requireNonNull(day).format(PARTITION_SUFFIX);
+    }
+}
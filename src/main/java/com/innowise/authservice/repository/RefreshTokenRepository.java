@@ -3,13 +3,67 @@ package com.innowise.authservice.repository;
 import com.innowise.authservice.entity.RefreshToken;
 import jakarta.transaction.Transactional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
-    Optional<RefreshToken> findByTokenHash(String tokenHash);
+    @Modifying
+    @Transactional
+    @Query("update RefreshToken t set t.isRevoked = true, t.updatedAt = current_instant " +
+            "where t.tokenHash = :tokenHash and t.isRevoked = false")
+    int revokeByTokenHash(byte[] tokenHash);
 
-    void deleteAllByExpiresAtBefore(Instant now);
+    /**
+     * Deletes at most {@code batchSize} tokens that expired before the cutoff in one statement and commits.
+     *
+     * @return the number of deleted tokens
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            DELETE FROM refresh_tokens
+            WHERE id IN (SELECT id FROM refresh_tokens WHERE expires_at < :cutoff LIMIT :batchSize)
+            """, nativeQuery = true)
+    int deleteExpiredBatch(Instant cutoff, int batchSize);
+
+    /**
+     * Revokes the presented refresh token and stores its replacement in one statement. The revoke only
+     * matches a token that is neither revoked nor expired, and the row lock it takes makes concurrent
+     * rotations of the same token serialize, so exactly one of them gets a result.
+     *
+     * @param tokenHash    the hash of the presented refresh token
+     * @param newTokenHash the hash of the refresh token replacing it
+     * @param newExpiresAt the expiration of the replacing token
+     * @param now          the current time
+     * @return the owner of the rotated token, empty if the token was unknown, expired or already used
+     */
+    @Transactional
+    @Query(value = """
+            WITH revoked AS (
+                UPDATE refresh_tokens SET is_revoked = true, updated_at = now()
+                WHERE token_hash = :tokenHash AND is_revoked = false AND expires_at > :now
+                RETURNING user_id
+            ), issued AS (
+                INSERT INTO refresh_tokens (id, user_id, token_hash, expires_at)
+                SELECT gen_random_uuid(), user_id, :newTokenHash, :newExpiresAt FROM revoked
+                RETURNING user_id
+            )
+            SELECT u.user_id AS userId, u.role AS role
+            FROM issued
+            JOIN users u ON u.id = issued.user_id
+            """, nativeQuery = true)
+    Optional<TokenOwner> rotate(byte[] tokenHash, byte[] newTokenHash, Instant newExpiresAt, Instant now);
+
+    /**
+     * Public ID and role of the user a refresh token belongs to, all a new token pair needs.
+     *
+     * @param userId the public user ID
+     * @param role   the user role
+     */
+    record TokenOwner(UUID userId, String role) {
+    }
 }
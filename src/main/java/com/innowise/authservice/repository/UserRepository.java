@@ -1,15 +1,62 @@
 package com.innowise.authservice.repository;
 
 import com.innowise.authservice.entity.User;
+import jakarta.persistence.QueryHint;
+import jakarta.transaction.Transactional;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
-    boolean existsByEmail(String email);
+    /**
+     * Inserts the user in one statement unless the email is taken, leaving the created and updated
+     * timestamps to the database defaults.
+     *
+     * @return the inserted user, or empty if a user with the email already exists
+     */
+    @Transactional
+    @Query(value = """
+            INSERT INTO users (id, user_id, email, password, role)
+            VALUES (:id, :userId, :email, :password, :role)
+            ON CONFLICT (email) DO NOTHING
+            RETURNING *""", nativeQuery = true)
+    Optional<User> insertIfEmailAbsent(UUID id, UUID userId, String email, String password, String role);
 
     Optional<User> findByEmail(String email);
 
-    Optional<User> findByUserId(UUID userId);
+    /**
+     * Streams all emails, fetched from the database in batches. Has to be consumed inside a transaction.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    @Query("select u.email from User u where u.createdAt > :since")
+    List<String> findEmailsCreatedAfter(Instant since);
+
+    boolean existsByUserId(UUID userId);
+
+    /**
+     * Deletes the users with the given public IDs in one statement; their refresh tokens go with them
+     * through the cascading foreign key.
+     *
+     * @return the public IDs of the users that existed and were deleted
+     */
+    @Transactional
+    @Query(value = "DELETE FROM users WHERE user_id IN (:userIds) RETURNING user_id", nativeQuery = true)
+    List<UUID> deleteAllByUserIds(Collection<UUID> userIds);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :password, u.updatedAt = current_instant where u.id = :id")
+    int updatePassword(UUID id, String password);
 }
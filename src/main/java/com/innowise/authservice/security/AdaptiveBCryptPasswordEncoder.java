@@ -0,0 +1,40 @@
+package com.innowise.authservice.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder that asks for re-encoding of stored hashes whose cost differs from the configured one, so
+ * hashes follow the cost when it is raised or lowered. With an upgrade-only encoder, hashes with a higher cost
+ * are kept: nodes calibrating their own cost would otherwise rewrite the same hash back and forth.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$[./0-9A-Za-z]{53}");
+
+    private final int strength;
+    private final boolean upgradeOnly;
+
+    /**
+     * @param strength    the cost new hashes are made with
+     * @param upgradeOnly whether only hashes with a lower cost are re-encoded
+     */
+    public AdaptiveBCryptPasswordEncoder(int strength, boolean upgradeOnly) {
+        super(strength);
+        this.strength = strength;
+        this.upgradeOnly = upgradeOnly;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        var matcher = BCRYPT_PATTERN.matcher(encodedPassword);
+        if (!matcher.find()) {
+            return false;
+        }
+        int cost = Integer.parseInt(matcher.group(1));
+        return upgradeOnly ? cost < strength : cost != strength;
+    }
+}
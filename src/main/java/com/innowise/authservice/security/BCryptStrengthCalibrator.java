@@ -0,0 +1,53 @@
+package com.innowise.authservice.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+
+/**
+ * Picks the highest BCrypt cost whose hashing time fits a latency budget on the current hardware.
+ * Each cost step doubles the work, so a single measurement at the minimum cost is enough to extrapolate.
+ */
+@Slf4j
+public final class BCryptStrengthCalibrator {
+    private static final String SAMPLE_PASSWORD = "Calibration1";
+    private static final int SAMPLES = 3;
+
+    private BCryptStrengthCalibrator() {
+    }
+
+    /**
+     * Measures hashing at the minimum cost and extrapolates the cost that fits the target latency.
+     *
+     * @param targetLatency the time one password hash may take
+     * @param minStrength   the lowest cost to return
+     * @param maxStrength   the highest cost to return
+     * @return the calibrated cost between minStrength and maxStrength
+     */
+    public static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        var encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode(SAMPLE_PASSWORD);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            encoder.encode(SAMPLE_PASSWORD);
+        }
+        long measuredNanos = Math.max(1, (System.nanoTime() - started) / SAMPLES);
+
+        int strength = strengthFor(targetLatency.toNanos(), measuredNanos, minStrength, maxStrength);
+        log.info("BCrypt cost {} takes {} ms, calibrated cost {} for target latency {} ms",
+                minStrength, measuredNanos / 1_000_000, strength, targetLatency.toMillis());
+        return strength;
+    }
+
+    static int strengthFor(long targetNanos, long measuredNanos, int minStrength, int maxStrength) {
+        int strength = minStrength;
+        long expectedNanos = measuredNanos;
+        while (strength < maxStrength && expectedNanos * 2 <= targetNanos) {
+            expectedNanos *= 2;
+            strength++;
+        }
+        return strength;
+    }
+}
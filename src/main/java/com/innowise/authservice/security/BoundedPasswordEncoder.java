@@ -0,0 +1,153 @@
+package com.innowise.authservice.security;
+
+import com.innowise.authservice.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Password encoder that runs the hashing of its delegate on a dedicated, bounded worker pool.
+ * Request threads only wait for the result, and when the pool and its queue are full
+ * the call fails fast with {@link PasswordHashingUnavailableException} instead of piling up.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long waitTimeoutMillis;
+
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+    private final Map<Outcome, Timer> hashingTimers = new EnumMap<>(Outcome.class);
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, PasswordProperties properties, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.waitTimeoutMillis = properties.getWaitTimeout().toMillis();
+        this.executor = new ThreadPoolExecutor(
+                properties.getPoolSize(),
+                properties.getPoolSize(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        new ExecutorServiceMetrics(executor, "passwordHashing", List.of()).bindTo(meterRegistry);
+        this.queueWaitTimer = Timer.builder("auth.password.hashing.queue.wait")
+                .description("Time a hashing task waits for a worker")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("auth.password.hashing.rejected")
+                .description("Hashing tasks rejected because the worker pool was saturated")
+                .register(meterRegistry);
+        for (var outcome : Outcome.values()) {
+            hashingTimers.put(outcome, Timer.builder("auth.password.hashing")
+                    .description("Time spent hashing or matching a password")
+                    .tag("operation", outcome.operation)
+                    .tag("outcome", outcome.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword), encoded -> Outcome.ENCODED, Outcome.ENCODE_FAILED);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword),
+                matched -> matched ? Outcome.MATCH : Outcome.MISMATCH, Outcome.MATCH_FAILED);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(Supplier<T> task, Function<T, Outcome> outcome, Outcome failure) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timed(task, outcome, failure);
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Password hashing pool is saturated. Queue size: {}", executor.getQueue().size());
+            rejectedCounter.increment();
+            throw new PasswordHashingUnavailableException();
+        }
+
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.debug("Password hashing did not complete in {} ms", waitTimeoutMillis);
+            future.cancel(true);
+            throw new PasswordHashingUnavailableException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new PasswordHashingUnavailableException();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private <T> T timed(Supplier<T> task, Function<T, Outcome> outcome, Outcome failure) {
+        long startedAt = System.nanoTime();
+        var result = failure;
+        try {
+            T value = task.get();
+            result = outcome.apply(value);
+            return value;
+        } finally {
+            hashingTimers.get(result).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Operation and outcome tags of the hashing timer, so every timer is registered once up front.
+     */
+    private enum Outcome {
+        ENCODED("encode", "success"),
+        ENCODE_FAILED("encode", "error"),
+        MATCH("matches", "match"),
+        MISMATCH("matches", "mismatch"),
+        MATCH_FAILED("matches", "error");
+
+        private final String operation;
+        private final String tag;
+
+        Outcome(String operation, String tag) {
+            this.operation = operation;
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.innowise.authservice.security;
+
+import java.time.Instant;
+
+/**
+ * Signed token together with the expiration written into it.
+ *
+ * @param value     the compact JWT
+ * @param expiresAt the expiration claim of the token
+ */
+public record IssuedToken(
+        String value,
+        Instant expiresAt
+) {
+}
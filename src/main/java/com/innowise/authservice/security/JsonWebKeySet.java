@@ -0,0 +1,25 @@
+package com.innowise.authservice.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Public signing keys in JWK Set format, serialized once together with the entity tag of that content.
+ *
+ * @param json the serialized key set
+ * @param eTag the quoted strong entity tag of {@code json}
+ */
+public record JsonWebKeySet(String json, String eTag) {
+    static JsonWebKeySet of(List<String> keys) {
+        var json = "{\"keys\":[" + String.join(",", keys) + "]}";
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+            return new JsonWebKeySet(json, "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -5,6 +5,10 @@ import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @ConfigurationProperties(prefix = "spring.security.jwt")
 @Getter
@@ -12,7 +16,156 @@ import org.springframework.context.annotation.Configuration;
 public class JwtProperties {
     private String secret;
 
+    /**
+     * Base64-encoded key refresh tokens are hashed with before they are stored. Falls back to {@link #secret},
+     * which has to be copied here before the JWT secret is rotated, or every stored refresh token stops matching.
+     */
+    private String refreshTokenHashSecret;
+
     private Long accessTokenTtl;
 
     private Long refreshTokenTtl;
-}
\ No newline at end of file
+
+    private Signing signing = new Signing();
+
+    private ValidationMode validationMode = ValidationMode.STATELESS;
+
+    private VerificationCache verificationCache = new VerificationCache();
+
+    private BatchValidation batchValidation = new BatchValidation();
+
+    private Maintenance refreshTokenMaintenance = new Maintenance();
+
+    @Getter
+    @Setter
+    public static class Signing {
+        private SigningAlgorithm algorithm = SigningAlgorithm.HS256;
+
+        /**
+         * ID of the key new tokens are signed with. When not set, the first key that can sign with the
+         * configured algorithm is used, and with {@code HS256} and no such key the shared secret without a key ID.
+         */
+        private String activeKeyId;
+
+        /**
+         * Keys tokens are verified with, looked up by the {@code kid} header. Keys that cannot sign with the
+         * configured algorithm only verify tokens, e.g. the previous key after a rotation.
+         */
+        private List<SigningKey> keys = new ArrayList<>();
+
+        /**
+         * YAML file with further keys and the active key ID, e.g. {@code file:/run/secrets/jwt-keyring.yaml}.
+         * Its keys are added to {@link #keys} and its active key ID takes precedence. The file is checked for
+         * changes every {@link #keyringPollInterval}, so keys can be rotated without a restart.
+         */
+        private String keyringFile;
+
+        private Duration keyringPollInterval = Duration.ofSeconds(10);
+
+        /**
+         * Whether tokens without a key ID, signed with the shared secret, still verify once tokens are signed
+         * with a configured key. Can be turned off once the refresh token TTL has passed since the switch.
+         */
+        private boolean acceptHmacTokens = true;
+
+        /**
+         * How long consumers may cache the published key set. A new key has to be published at least
+         * this long before it becomes active.
+         */
+        private Duration jwksMaxAge = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class SigningKey {
+        private String id;
+
+        /**
+         * Base64-encoded HMAC secret, for {@code HS256} keys.
+         */
+        private String secret;
+
+        /**
+         * PKCS#8 PEM content or a resource location such as {@code file:/run/secrets/jwt-key.pem}.
+         */
+        private String privateKey;
+
+        /**
+         * X.509 PEM content or a resource location.
+         */
+        private String publicKey;
+    }
+
+    @Getter
+    @Setter
+    public static class VerificationCache {
+        private boolean enabled = true;
+
+        private long maximumSize = 100_000;
+    }
+
+    @Getter
+    @Setter
+    public static class BatchValidation {
+        private int maxBatchSize = 1_000;
+
+        /**
+         * Batches up to this size are verified on the calling thread, larger ones are split into chunks of it.
+         */
+        private int chunkSize = 64;
+
+        private int poolSize = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Chunks waiting for a free worker. Batches arriving while it is full are rejected.
+         */
+        private int queueCapacity = 1_000;
+
+        /**
+         * Validations a single stream may have requested but not yet answered.
+         */
+        private int streamWindow = 256;
+    }
+
+    @Getter
+    @Setter
+    public static class Maintenance {
+        private String cron = "0 0 * * * *";
+
+        /**
+         * Days beyond the refresh token TTL partitions are created for, so that the partitions outlast
+         * maintenance runs that are missed or fail.
+         */
+        private int daysAhead = 7;
+
+        private int batchSize = 5_000;
+
+        private Duration pause = Duration.ofMillis(100);
+    }
+
+    public enum SigningAlgorithm {
+        /**
+         * HMAC with the shared secret. Consumers have to call the service or share the secret to validate tokens.
+         */
+        HS256,
+        /**
+         * RSA signatures, verifiable by consumers with the keys published at {@code /.well-known/jwks.json}.
+         */
+        RS256,
+        /**
+         * Ed25519 signatures, verifiable like RS256 but with smaller keys and faster signing.
+         */
+        EDDSA
+    }
+
+    public enum ValidationMode {
+        /**
+         * Signature, expiry and the in-memory revocation list only, the database is never queried.
+         */
+        STATELESS,
+        /**
+         * Additionally confirms that the subject of an access token still exists in the database.
+         */
+        DATABASE
+    }
+}
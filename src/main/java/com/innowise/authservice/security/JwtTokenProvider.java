@@ -1,87 +1,168 @@
 package com.innowise.authservice.security;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import io.jsonwebtoken.security.SecurityException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
-import javax.crypto.SecretKey;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class JwtTokenProvider {
+    static final String SECRET_PROPERTY = "spring.security.jwt.secret";
+    static final String SIGNING_PROPERTY = "spring.security.jwt.signing";
+    private static final String ROLE_CLAIM = "role";
+
     private final JwtProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Timer accessTokenSignTimer;
+    private final Timer refreshTokenSignTimer;
+    private final Timer validVerifyTimer;
+    private final Map<TokenVerification.FailureReason, Timer> failedVerifyTimers =
+            new EnumMap<>(TokenVerification.FailureReason.class);
+
+    /**
+     * Keys and parser built from the current configuration. Replaced as a whole on reload,
+     * so a single read always sees keys and a parser that belong together.
+     */
+    private volatile SigningKeys signingKeys;
 
-    public Instant getExpiresAt(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .getExpiration()
-                .toInstant();
+    public JwtTokenProvider(JwtProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.signingKeys = build(properties.getSecret(), properties.getSigning());
+        this.accessTokenSignTimer = signTimer(TokenVerification.Type.ACCESS);
+        this.refreshTokenSignTimer = signTimer(TokenVerification.Type.REFRESH);
+        this.validVerifyTimer = verifyTimer(TokenVerification.VALID_OUTCOME);
+        for (var failureReason : TokenVerification.FailureReason.values()) {
+            failedVerifyTimers.put(failureReason, verifyTimer(TokenVerification.outcome(failureReason)));
+        }
     }
 
-    public String getStringClaim(String token, String claim) {
-        return Jwts.parser()
-                .verifyWith(getSignKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload()
-                .get(claim, String.class);
+    /**
+     * Verifies the signature and expiry of a token and extracts its claims in a single parse.
+     *
+     * @param token the token to verify
+     * @return the verification result, never null
+     */
+    public TokenVerification verify(String token) {
+        var sample = Timer.start(meterRegistry);
+        var verification = parse(token);
+        sample.stop(verification.valid() ? validVerifyTimer : failedVerifyTimers.get(verification.failureReason()));
+        return verification;
     }
 
-    public boolean validateToken(String token) {
+    private TokenVerification parse(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSignKey())
-                    .build()
+            Claims claims = signingKeys.parser()
                     .parseSignedClaims(token)
                     .getPayload();
-            return true;
+            return TokenVerification.verified(
+                    claims.getId(),
+                    claims.getSubject(),
+                    claims.get(ROLE_CLAIM, String.class),
+                    claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                    claims.getExpiration().toInstant());
         } catch (ExpiredJwtException e) {
             log.debug("Token is expired");
+            return TokenVerification.failed(TokenVerification.FailureReason.EXPIRED);
         } catch (UnsupportedJwtException e) {
             log.debug("Unsupported JWT Exception. Message: {}", e.getMessage());
+            return TokenVerification.failed(TokenVerification.FailureReason.UNSUPPORTED);
         } catch (MalformedJwtException e) {
             log.debug("Malformed JWT Exception. Message: {}", e.getMessage());
+            return TokenVerification.failed(TokenVerification.FailureReason.MALFORMED);
         } catch (SecurityException e) {
             log.debug("Security exception while validating token. Message: {}", e.getMessage());
+            return TokenVerification.failed(TokenVerification.FailureReason.INVALID_SIGNATURE);
         } catch (Exception e) {
             log.debug("Unknown exception while validating token. Message: {}", e.getMessage());
+            return TokenVerification.failed(TokenVerification.FailureReason.INVALID);
         }
-        return false;
+    }
+
+    public boolean validateToken(String token) {
+        return verify(token).valid();
     }
 
     public String generateAccessToken(UUID id, Map<String, Object> claims) {
         Date expiration = Date.from(Instant.now().plusSeconds(properties.getAccessTokenTtl()));
-        return generateToken(id, expiration, claims);
+        return accessTokenSignTimer.record(() -> generateToken(id, expiration, claims));
+    }
+
+    public IssuedToken generateRefreshToken(UUID id) {
+        // JWT expiration has second precision, keep the returned instant equal to the claim
+        Instant expiresAt = Instant.now().plusSeconds(properties.getRefreshTokenTtl()).truncatedTo(ChronoUnit.SECONDS);
+        var token = refreshTokenSignTimer.record(() -> generateToken(id, Date.from(expiresAt), Map.of()));
+        return new IssuedToken(token, expiresAt);
+    }
+
+    /**
+     * @return the public keys tokens are verified with, empty when tokens are signed with the shared secret
+     */
+    public JsonWebKeySet jsonWebKeySet() {
+        return signingKeys.jsonWebKeySet();
     }
 
-    public String generateRefreshToken(UUID id) {
-        Date expiration = Date.from(Instant.now().plusSeconds(properties.getRefreshTokenTtl()));
-        return generateToken(id, expiration, Map.of());
+    /**
+     * Rebuilds the signing keys and parser, including the keys in the keyring file if one is configured.
+     * Tokens issued after this call are signed with the new active key. The keys are built before they replace
+     * the current ones, so verification never waits for a reload and an invalid configuration keeps the old keys.
+     *
+     * @param secret  the Base64-encoded HMAC secret for tokens without a key ID
+     * @param signing the signing configuration
+     * @return whether a key that verified tokens before was removed or changed, so those tokens stop validating
+     */
+    public boolean reload(String secret, JwtProperties.Signing signing) {
+        var previous = signingKeys;
+        signingKeys = build(secret, signing);
+        log.info("JWT signing keys reloaded");
+        return signingKeys.withdraws(previous);
+    }
+
+    /**
+     * @return whether the property holds key material or selects the signing key
+     */
+    static boolean isKeyProperty(String property) {
+        return property.equals(SECRET_PROPERTY) || property.startsWith(SIGNING_PROPERTY + ".");
+    }
+
+    private static SigningKeys build(String secret, JwtProperties.Signing signing) {
+        var keyring = StringUtils.hasText(signing.getKeyringFile()) ? Keyring.read(signing.getKeyringFile()) : Keyring.EMPTY;
+        return SigningKeys.of(secret, signing, keyring);
+    }
+
+    private Timer signTimer(TokenVerification.Type type) {
+        return Timer.builder("auth.token.sign")
+                .description("Time spent building and signing a token")
+                .tag("type", type.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    private Timer verifyTimer(String outcome) {
+        return Timer.builder("auth.token.verify")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     private String generateToken(UUID id, Date expiration, Map<String, Object> claims) {
-        return Jwts
+        var builder = Jwts
                 .builder()
+                .id(UUID.randomUUID().toString())
+                .issuedAt(new Date())
                 .expiration(expiration)
                 .subject(id.toString())
-                .claims(claims)
-                .signWith(getSignKey())
-                .compact();
-    }
-
-    private SecretKey getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(properties.getSecret());
-        return Keys.hmacShaKeyFor(keyBytes);
+                .claims(claims);
+        return signingKeys.sign(builder).compact();
     }
 }
@@ -0,0 +1,68 @@
+package com.innowise.authservice.security;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Keys read from the keyring file, in the same format as the {@code spring.security.jwt.signing} section:
+ * <pre>
+ * active-key-id: 2026-11
+ * keys:
+ *   - id: 2026-11
+ *     secret: ...
+ *   - id: 2026-10
+ *     secret: ...
+ * </pre>
+ *
+ * @param activeKeyId the ID of the key to sign with, or null to keep the configured one
+ * @param keys        keys added to the configured ones
+ */
+record Keyring(String activeKeyId, List<JwtProperties.SigningKey> keys) {
+    static final Keyring EMPTY = new Keyring(null, List.of());
+
+    Keyring {
+        keys = keys != null ? List.copyOf(keys) : List.of();
+    }
+
+    /**
+     * @param location the resource location of the keyring file
+     * @return the keys in the file, {@link #EMPTY} if the file is empty
+     */
+    static Keyring read(String location) {
+        try {
+            var sources = new YamlPropertySourceLoader().load(location, resource(location));
+            return new Binder(ConfigurationPropertySources.from(sources))
+                    .bind("", Keyring.class)
+                    .orElse(EMPTY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read keyring from " + location, e);
+        }
+    }
+
+    /**
+     * @param location the resource location of the keyring file
+     * @return the SHA-256 digest of the file content, to detect changes without parsing it
+     */
+    static byte[] digest(String location) {
+        try (var input = resource(location).getInputStream()) {
+            return MessageDigest.getInstance("SHA-256").digest(input.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read keyring from " + location, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Resource resource(String location) {
+        return new DefaultResourceLoader().getResource(location);
+    }
+}
@@ -0,0 +1,201 @@
+package com.innowise.authservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.innowise.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory answer to whether an email can belong to a registered user, so logins for unknown emails
+ * skip the database. A bloom filter of all emails is built at startup by streaming them from the
+ * database, then kept current with local signups and, every sync interval, with users registered
+ * through other instances. Emails the filter lets through but the database does not know are
+ * remembered for a short time.
+ * <p>
+ * An email missing from the filter may have been registered through another instance since the last sync,
+ * so a miss syncs first unless the last sync started less than the miss sync interval ago. Under a flood
+ * of unknown emails the database therefore sees at most one query for recent signups per interval instead
+ * of one lookup per login, at the cost of missing signups of other instances for up to that interval.
+ * Emails in the unknown email cache are rejected without a sync, as a sync forgets the emails it adds.
+ * <p>
+ * A bloom filter cannot forget, so deleted users stay in it and are answered by the database and
+ * the unknown email cache. The filter is rebuilt once deletions or signups have moved it far enough
+ * from what it was sized for. Until the first build, every email is treated as possibly registered.
+ */
+@Component
+@Slf4j
+public class KnownEmails {
+    private final KnownEmailsProperties properties;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, Boolean> unknownEmails;
+    private final AtomicLong changes = new AtomicLong();
+    private final Ticker ticker;
+
+    private volatile BloomFilter<CharSequence> filter;
+    private volatile long capacity;
+    private Instant syncedAt;
+    /**
+     * {@link Ticker} time the last completed sync or rebuild started at, only changed while holding the lock.
+     */
+    private volatile long syncStartedNanos;
+
+    @Autowired
+    public KnownEmails(KnownEmailsProperties properties, UserRepository userRepository,
+                       TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this(properties, userRepository, transactionTemplate, meterRegistry, Ticker.systemTicker());
+    }
+
+    KnownEmails(KnownEmailsProperties properties, UserRepository userRepository,
+                TransactionTemplate transactionTemplate, MeterRegistry meterRegistry, Ticker ticker) {
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.ticker = ticker;
+        this.unknownEmails = Caffeine.newBuilder()
+                .maximumSize(properties.getUnknownEmailMaximumSize())
+                .expireAfterWrite(properties.getUnknownEmailTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, unknownEmails, "unknownEmails");
+        Gauge.builder("auth.known.emails.false.positive.probability", this,
+                        knownEmails -> knownEmails.filter != null ? knownEmails.filter.expectedFpp() : 1.0)
+                .description("Probability that the filter lets an unknown email through to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param email the email to check
+     * @return false if the email is certainly not registered, true if it may be
+     */
+    public boolean mightExist(String email) {
+        if (!properties.isEnabled() || filter == null) {
+            return true;
+        }
+        if (unknownEmails.getIfPresent(email) != null) {
+            return false;
+        }
+        if (filter.mightContain(email)) {
+            return true;
+        }
+        if (isSyncDue()) {
+            syncIfDue();
+        }
+        return filter.mightContain(email);
+    }
+
+    /**
+     * Adds the email of a user who just signed up.
+     */
+    public void add(String email) {
+        var current = filter;
+        if (current != null && current.put(email)) {
+            changes.incrementAndGet();
+        }
+        unknownEmails.invalidate(email);
+    }
+
+    /**
+     * Remembers an email the database did not know for the unknown email TTL.
+     */
+    public void markUnknown(String email) {
+        unknownEmails.put(email, Boolean.TRUE);
+    }
+
+    /**
+     * Counts deleted users towards the next rebuild of the filter.
+     *
+     * @param count the number of deleted users
+     */
+    public void removed(int count) {
+        changes.addAndGet(count);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Adds users registered since the last sync, or rebuilds the filter when it drifted too far from its size.
+     */
+    @Scheduled(fixedDelayString = "${spring.security.known-emails.sync-interval:5s}")
+    public synchronized void sync() {
+        if (!properties.isEnabled() || filter == null) {
+            return;
+        }
+        if (changes.get() > capacity / 2) {
+            rebuild();
+            return;
+        }
+        addRecentSignups();
+    }
+
+    synchronized void rebuild() {
+        long startedNanos = ticker.read();
+        var startedAt = Instant.now();
+        var registered = userRepository.count();
+        var expectedInsertions = Math.max(registered * 2, registered + properties.getMinimumCapacity());
+        var rebuilt = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions,
+                properties.getFalsePositiveProbability());
+        transactionTemplate.executeWithoutResult(status -> {
+            try (var emails = userRepository.streamAllEmails()) {
+                emails.forEach(rebuilt::put);
+            }
+        });
+
+        capacity = expectedInsertions;
+        changes.set(0);
+        // Signups of other instances that committed while streaming are picked up by the next sync
+        syncedAt = startedAt;
+        syncStartedNanos = startedNanos;
+        filter = rebuilt;
+        log.info("Known email filter built for {} users in {} ms", registered,
+                Duration.between(startedAt, Instant.now()).toMillis());
+    }
+
+    private boolean isSyncDue() {
+        return ticker.read() - syncStartedNanos >= properties.getMissSyncInterval().toNanos();
+    }
+
+    /**
+     * Syncs unless a sync that started less than the miss sync interval ago completed while waiting for the lock.
+     */
+    private synchronized void syncIfDue() {
+        if (isSyncDue()) {
+            addRecentSignups();
+        }
+    }
+
+    private void addRecentSignups() {
+        long startedNanos = ticker.read();
+        var since = syncedAt.minus(properties.getSyncOverlap());
+        syncedAt = Instant.now();
+        for (var email : userRepository.findEmailsCreatedAfter(since)) {
+            if (filter.put(email)) {
+                changes.incrementAndGet();
+            }
+            unknownEmails.invalidate(email);
+        }
+        syncStartedNanos = startedNanos;
+    }
+}
@@ -0,0 +1,46 @@
+package com.innowise.authservice.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.security.known-emails")
+@Getter
+@Setter
+public class KnownEmailsProperties {
+    private boolean enabled = false;
+
+    private double falsePositiveProbability = 0.01;
+
+    /**
+     * Emails the filter is sized for beyond the registered ones, before it has to be rebuilt.
+     */
+    private long minimumCapacity = 10_000;
+
+    /**
+     * How often emails registered through other instances are added.
+     */
+    private Duration syncInterval = Duration.ofSeconds(5);
+
+    /**
+     * How long after a sync started logins for emails missing from the filter are rejected without syncing again,
+     * so at most one of them per interval queries the database.
+     */
+    private Duration missSyncInterval = Duration.ofMillis(250);
+
+    /**
+     * How far back each sync looks, to catch users whose signup committed after a later one was already synced.
+     */
+    private Duration syncOverlap = Duration.ofMinutes(1);
+
+    /**
+     * How long an email that was not found in the database is answered from memory.
+     */
+    private Duration unknownEmailTtl = Duration.ofMinutes(1);
+
+    private long unknownEmailMaximumSize = 100_000;
+}
@@ -0,0 +1,96 @@
+package com.innowise.authservice.security;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.innowise.authservice.dto.Emails;
+import com.innowise.authservice.exception.TooManyAttemptsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Throttles login and signup attempts per email address and per client IP address before any database
+ * or password hashing work is done. Credential stuffing against one account is held back by the account
+ * limit, bursts across many accounts from one client by the address limit, which is only applied when
+ * enabled. The buckets are local to this instance.
+ */
+@Component
+@Slf4j
+public class LoginThrottle {
+    private final boolean enabled;
+    private final boolean accountLimited;
+    private final boolean addressLimited;
+    private final TokenBuckets accounts;
+    private final TokenBuckets addresses;
+    private final Map<Operation, Counter> accountRejections = new EnumMap<>(Operation.class);
+    private final Map<Operation, Counter> addressRejections = new EnumMap<>(Operation.class);
+
+    @Autowired
+    public LoginThrottle(ThrottlingProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    LoginThrottle(ThrottlingProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.enabled = properties.isEnabled();
+        this.accountLimited = properties.getAccount().isEnabled();
+        this.addressLimited = properties.getAddress().isEnabled();
+        this.accounts = new TokenBuckets(properties.getAccount(), ticker);
+        this.addresses = new TokenBuckets(properties.getAddress(), ticker);
+        accounts.monitor(meterRegistry, "throttledAccounts");
+        addresses.monitor(meterRegistry, "throttledAddresses");
+        for (var operation : Operation.values()) {
+            accountRejections.put(operation, rejections(meterRegistry, operation, "account"));
+            addressRejections.put(operation, rejections(meterRegistry, operation, "address"));
+        }
+    }
+
+    /**
+     * Takes an attempt from the address and then from the account, so attempts rejected for the address do not
+     * use up the account's attempts.
+     *
+     * @param operation the throttled operation, used as a metric tag
+     * @param email     the email address the attempt is for
+     * @param address   the client IP address
+     * @throws TooManyAttemptsException if either limit is exhausted
+     */
+    public void acquire(Operation operation, String email, String address) {
+        if (!enabled) {
+            return;
+        }
+        if (addressLimited) {
+            var wait = addresses.tryAcquire(address);
+            if (!wait.isZero()) {
+                reject(operation, addressRejections, "address", wait);
+            }
+        }
+        if (accountLimited) {
+            var wait = accounts.tryAcquire(Emails.normalize(email));
+            if (!wait.isZero()) {
+                reject(operation, accountRejections, "account", wait);
+            }
+        }
+    }
+
+    private static void reject(Operation operation, Map<Operation, Counter> rejections, String limit, Duration wait) {
+        log.debug("Throttled {} attempt by {} limit", operation, limit);
+        rejections.get(operation).increment();
+        throw new TooManyAttemptsException(wait);
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, Operation operation, String limit) {
+        return meterRegistry.counter("auth.throttle.rejections",
+                "operation", operation.name().toLowerCase(Locale.ROOT),
+                "limit", limit);
+    }
+
+    public enum Operation {
+        LOGIN,
+        SIGNUP
+    }
+}
@@ -0,0 +1,39 @@
+package com.innowise.authservice.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.security.password")
+@Getter
+@Setter
+public class PasswordProperties {
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+
+    private int queueCapacity = 100;
+
+    private Duration waitTimeout = Duration.ofSeconds(5);
+
+    /**
+     * BCrypt cost of new hashes. Stored hashes with another cost are re-encoded on login, so lowering it also
+     * lowers the login CPU cost of existing users.
+     */
+    private int strength = 10;
+
+    /**
+     * Whether to ignore {@link #strength} and calibrate the cost to {@link #targetLatency} at startup instead.
+     * Measurements differ between nodes, so calibrated costs are best used to find a value for {@link #strength}.
+     * Calibrated costs only upgrade stored hashes, never lower them.
+     */
+    private boolean calibrate = false;
+
+    private Duration targetLatency = Duration.ofMillis(100);
+
+    private int minStrength = 10;
+
+    private int maxStrength = 14;
+}
@@ -0,0 +1,58 @@
+package com.innowise.authservice.security;
+
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Reads PKCS#8 private keys and X.509 public keys from PEM content or from a resource location.
+ */
+final class PemKeys {
+    private static final String PEM_PREFIX = "-----BEGIN";
+
+    private PemKeys() {
+    }
+
+    static PrivateKey privateKey(String pem, String algorithm) {
+        try {
+            return KeyFactory.getInstance(algorithm).generatePrivate(new PKCS8EncodedKeySpec(decode(pem)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid " + algorithm + " private key", e);
+        }
+    }
+
+    static PublicKey publicKey(String pem, String algorithm) {
+        try {
+            return KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(decode(pem)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Invalid " + algorithm + " public key", e);
+        }
+    }
+
+    private static byte[] decode(String value) {
+        var pem = value.strip().startsWith(PEM_PREFIX) ? value : read(value.strip());
+        var base64 = pem.lines()
+                .filter(line -> !line.startsWith("-----"))
+                .map(String::strip)
+                .reduce("", String::concat);
+        return Base64.getDecoder().decode(base64);
+    }
+
+    private static String read(String location) {
+        var resource = new DefaultResourceLoader().getResource(location);
+        try (var input = resource.getInputStream()) {
+            return new String(input.readAllBytes(), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read key from " + location, e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.innowise.authservice.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.security.refresh-token-writes")
+@Getter
+@Setter
+public class RefreshTokenWritesProperties {
+    /**
+     * Whether refresh tokens issued by concurrent logins are inserted together in JDBC batches. A login
+     * still returns only after the batch with its token committed.
+     */
+    private boolean batched = false;
+
+    private int maxBatchSize = 64;
+
+    /**
+     * How long a batch waits for more tokens after its first one. With zero, a batch only holds the tokens
+     * that queued up while the previous batch was committing.
+     */
+    private Duration maxDelay = Duration.ofMillis(2);
+
+    /**
+     * Tokens waiting for a batch. When it is full, logins insert their tokens themselves.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * How long a login waits for the batch with its token. A token still queued by then is inserted by the
+     * login itself, otherwise the login fails.
+     */
+    private Duration writeTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,69 @@
+package com.innowise.authservice.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+
+/**
+ * Reloads the signing keys at runtime, when a key property changes in the environment or the keyring file
+ * changes on disk. Cached token verifications are only dropped when a key was removed or changed, so adding
+ * a key or switching the active one leaves validation latency untouched.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SigningKeyReloader {
+    private static final String KEYRING_FILE_PROPERTY = JwtTokenProvider.SIGNING_PROPERTY + ".keyring-file";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenVerificationCache tokenVerificationCache;
+    private final Environment environment;
+
+    private byte[] keyringDigest;
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(JwtTokenProvider::isKeyProperty)) {
+            reload();
+        }
+    }
+
+    /**
+     * Reloads the keys when the content of the keyring file changed since the last check. A file that cannot be
+     * read or holds invalid keys is logged and skipped until it changes again, the current keys stay in use.
+     */
+    @Scheduled(fixedDelayString = "${spring.security.jwt.signing.keyring-poll-interval:10s}")
+    public synchronized void pollKeyringFile() {
+        var location = environment.getProperty(KEYRING_FILE_PROPERTY);
+        if (!StringUtils.hasText(location)) {
+            return;
+        }
+        try {
+            var digest = Keyring.digest(location);
+            if (!Arrays.equals(digest, keyringDigest)) {
+                keyringDigest = digest;
+                reload();
+            }
+        } catch (RuntimeException e) {
+            log.error("Cannot reload signing keys from keyring {}", location, e);
+        }
+    }
+
+    synchronized void reload() {
+        var signing = Binder.get(environment)
+                .bind(JwtTokenProvider.SIGNING_PROPERTY, JwtProperties.Signing.class)
+                .orElseGet(JwtProperties.Signing::new);
+        if (jwtTokenProvider.reload(environment.getRequiredProperty(JwtTokenProvider.SECRET_PROPERTY), signing)) {
+            log.info("Signing keys were removed or changed, dropping cached token verifications");
+            tokenVerificationCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.innowise.authservice.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.InvalidKeyException;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Keys for signing and verifying tokens together with the thread-safe parser that uses them.
+ * Built from the configuration and replaced as a whole on reload.
+ * <p>
+ * Tokens are signed with the active key and carry its ID in the {@code kid} header. Verification looks the key up
+ * by that ID in a map built once per reload, so any configured key verifies its tokens and rotating keys costs
+ * nothing per token. Only public keys are published in the key set. Tokens without a key ID are verified with
+ * the shared secret, which keeps tokens issued before keys were configured valid while {@code accept-hmac-tokens}
+ * is set. With {@code HS256} and no configured secret key tokens are still signed with the shared secret.
+ */
+final class SigningKeys extends LocatorAdapter<Key> {
+    private final SecretKey secretKey;
+    private final Map<String, Key> verificationKeys;
+    private final UnaryOperator<JwtBuilder> signer;
+    private final JsonWebKeySet jsonWebKeySet;
+    private final JwtParser parser;
+
+    /**
+     * @param secretKey        the key for tokens without a key ID, null if they are rejected
+     * @param verificationKeys the keys by ID
+     */
+    private SigningKeys(SecretKey secretKey, Map<String, Key> verificationKeys,
+                        UnaryOperator<JwtBuilder> signer, JsonWebKeySet jsonWebKeySet) {
+        this.secretKey = secretKey;
+        this.verificationKeys = verificationKeys;
+        this.signer = signer;
+        this.jsonWebKeySet = jsonWebKeySet;
+        this.parser = Jwts.parser().keyLocator(this).build();
+    }
+
+    /**
+     * @param secret  the Base64-encoded HMAC secret for tokens without a key ID
+     * @param signing the signing configuration
+     * @param keyring keys from the keyring file
+     * @throws IllegalStateException if the active key cannot sign with the configured algorithm
+     */
+    static SigningKeys of(String secret, JwtProperties.Signing signing, Keyring keyring) {
+        var algorithm = signing.getAlgorithm();
+        var activeKeyId = keyring.activeKeyId() != null ? keyring.activeKeyId() : signing.getActiveKeyId();
+        var keys = new ArrayList<>(signing.getKeys());
+        keys.addAll(keyring.keys());
+
+        var verificationKeys = new HashMap<String, Key>();
+        var jwks = new ArrayList<String>();
+        JwtProperties.SigningKey activeKey = null;
+        for (var key : keys) {
+            if (verificationKeys.containsKey(key.getId())) {
+                throw new IllegalStateException("Duplicate signing key " + key.getId());
+            }
+            if (StringUtils.hasText(key.getSecret())) {
+                verificationKeys.put(key.getId(), secretKey(key.getSecret()));
+            } else if (algorithm == JwtProperties.SigningAlgorithm.HS256) {
+                throw new IllegalStateException("Signing key " + key.getId() + " has no secret");
+            } else {
+                var publicKey = PemKeys.publicKey(key.getPublicKey(), keyAlgorithm(algorithm));
+                verificationKeys.put(key.getId(), publicKey);
+                jwks.add(Jwks.json(Jwks.builder()
+                        .key(publicKey)
+                        .id(key.getId())
+                        .algorithm(signatureAlgorithm(algorithm).getId())
+                        .publicKeyUse("sig")
+                        .build()));
+            }
+
+            var active = StringUtils.hasText(activeKeyId)
+                    ? key.getId().equals(activeKeyId)
+                    : activeKey == null && canSign(key, algorithm);
+            if (active) {
+                if (!canSign(key, algorithm)) {
+                    throw new IllegalStateException("Active signing key " + key.getId() + " cannot sign " + algorithm);
+                }
+                activeKey = key;
+            }
+        }
+
+        var sharedKey = secretKey(secret);
+        if (activeKey == null) {
+            if (algorithm != JwtProperties.SigningAlgorithm.HS256 || StringUtils.hasText(activeKeyId)) {
+                throw new IllegalStateException("No key configured for " + algorithm + " signing");
+            }
+            return new SigningKeys(sharedKey, Map.copyOf(verificationKeys),
+                    builder -> builder.signWith(sharedKey), JsonWebKeySet.of(jwks));
+        }
+
+        var keyId = activeKey.getId();
+        UnaryOperator<JwtBuilder> signer;
+        if (algorithm == JwtProperties.SigningAlgorithm.HS256) {
+            var signingKey = (SecretKey) verificationKeys.get(keyId);
+            signer = builder -> builder.header().keyId(keyId).and().signWith(signingKey);
+        } else {
+            var privateKey = PemKeys.privateKey(activeKey.getPrivateKey(), keyAlgorithm(algorithm));
+            var signatureAlgorithm = signatureAlgorithm(algorithm);
+            signer = builder -> builder.header().keyId(keyId).and().signWith(privateKey, signatureAlgorithm);
+        }
+        return new SigningKeys(signing.isAcceptHmacTokens() ? sharedKey : null, Map.copyOf(verificationKeys),
+                signer, JsonWebKeySet.of(jwks));
+    }
+
+    JwtParser parser() {
+        return parser;
+    }
+
+    JsonWebKeySet jsonWebKeySet() {
+        return jsonWebKeySet;
+    }
+
+    /**
+     * Sets the key ID header if there is one and signs the token with the active key.
+     */
+    JwtBuilder sign(JwtBuilder builder) {
+        return signer.apply(builder);
+    }
+
+    /**
+     * @param previous the keys these replace
+     * @return whether a token the previous keys verified may no longer verify with these
+     */
+    boolean withdraws(SigningKeys previous) {
+        if (previous.secretKey != null && !sameKey(previous.secretKey, secretKey)) {
+            return true;
+        }
+        return previous.verificationKeys.entrySet().stream()
+                .anyMatch(entry -> !sameKey(entry.getValue(), verificationKeys.get(entry.getKey())));
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        var keyId = header.getKeyId();
+        if (keyId == null) {
+            if (secretKey == null) {
+                throw new InvalidKeyException("Token has no key ID");
+            }
+            return secretKey;
+        }
+        var key = verificationKeys.get(keyId);
+        if (key == null) {
+            throw new InvalidKeyException("Unknown key ID " + keyId);
+        }
+        return key;
+    }
+
+    private static boolean canSign(JwtProperties.SigningKey key, JwtProperties.SigningAlgorithm algorithm) {
+        return algorithm == JwtProperties.SigningAlgorithm.HS256
+                ? StringUtils.hasText(key.getSecret())
+                : StringUtils.hasText(key.getPrivateKey());
+    }
+
+    private static boolean sameKey(Key key, Key other) {
+        return other != null && MessageDigest.isEqual(key.getEncoded(), other.getEncoded());
+    }
+
+    private static SecretKey secretKey(String secret) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    private static String keyAlgorithm(JwtProperties.SigningAlgorithm algorithm) {
+        return algorithm == JwtProperties.SigningAlgorithm.RS256 ? "RSA" : "Ed25519";
+    }
+
+    private static SignatureAlgorithm signatureAlgorithm(JwtProperties.SigningAlgorithm algorithm) {
+        return algorithm == JwtProperties.SigningAlgorithm.RS256 ? Jwts.SIG.RS256 : Jwts.SIG.EdDSA;
+    }
+}
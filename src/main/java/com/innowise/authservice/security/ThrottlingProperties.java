@@ -0,0 +1,52 @@
+package com.innowise.authservice.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "spring.security.throttling")
+@Getter
+@Setter
+public class ThrottlingProperties {
+    private boolean enabled = true;
+
+    /**
+     * Login and signup attempts per email address.
+     */
+    private Limit account = new Limit(10, Duration.ofSeconds(30));
+
+    /**
+     * Login and signup attempts per client IP address. Disabled by default: behind the gateway the remote
+     * address is the gateway's, so all clients would share one bucket. Enable it together with
+     * {@code server.forward-headers-strategy} once the gateway's forwarded headers are trusted.
+     */
+    private Limit address = new Limit(false, 100, Duration.ofMillis(100));
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private boolean enabled = true;
+
+        /**
+         * Attempts allowed in a burst.
+         */
+        private int capacity;
+
+        /**
+         * Time after which one more attempt is allowed.
+         */
+        private Duration refillInterval;
+
+        public Limit(int capacity, Duration refillInterval) {
+            this(true, capacity, refillInterval);
+        }
+    }
+}
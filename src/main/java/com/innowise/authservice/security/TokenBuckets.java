@@ -0,0 +1,60 @@
+package com.innowise.authservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets with the same limit for many keys. A bucket is a single {@link AtomicLong} holding the time at
+ * which it is full again, so taking a token is one compare-and-set without locks or a refill task. The buckets
+ * expire once they would be full again, when dropping them changes nothing. They are not bounded by size, as
+ * evicting a bucket early would reset its limit, so flooding other keys could not free an exhausted one.
+ */
+final class TokenBuckets {
+    private final long refillInterval;
+    private final long burstTolerance;
+    private final Ticker ticker;
+    private final Cache<String, AtomicLong> buckets;
+
+    TokenBuckets(ThrottlingProperties.Limit limit, Ticker ticker) {
+        this.refillInterval = limit.getRefillInterval().toNanos();
+        this.burstTolerance = refillInterval * (limit.getCapacity() - 1);
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofNanos(refillInterval + burstTolerance))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Takes a token from the bucket of the key.
+     *
+     * @param key the key to throttle, e.g. an email address
+     * @return zero if a token was taken, otherwise how long until the next one is available
+     */
+    Duration tryAcquire(String key) {
+        var bucket = buckets.get(key, ignored -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            long now = ticker.read();
+            long fullAt = bucket.get();
+            long from = fullAt == Long.MIN_VALUE || fullAt - now < 0 ? now : fullAt;
+            long wait = from - now - burstTolerance;
+            if (wait > 0) {
+                return Duration.ofNanos(wait);
+            }
+            if (bucket.compareAndSet(fullAt, from + refillInterval)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+
+    void monitor(MeterRegistry meterRegistry, String name) {
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, name);
+    }
+}
@@ -0,0 +1,68 @@
+package com.innowise.authservice.security;
+
+import io.jsonwebtoken.io.Decoders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * HMAC-SHA256 of refresh tokens, which are stored and looked up by this hash instead of their value.
+ * A {@link Mac} is not thread-safe, so every call borrows one from a lock-free pool and returns it afterwards.
+ * The pool only grows to the number of concurrent callers, which also works for virtual threads, where a
+ * thread-local MAC would be initialized again for every request.
+ */
+@Component
+public class TokenHasher {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final Queue<Mac> macs = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Uses the refresh token hash secret, so rotating the JWT secret leaves stored hashes matching.
+     */
+    @Autowired
+    public TokenHasher(JwtProperties properties) {
+        this(Decoders.BASE64.decode(StringUtils.hasText(properties.getRefreshTokenHashSecret())
+                ? properties.getRefreshTokenHashSecret()
+                : properties.getSecret()));
+    }
+
+    TokenHasher(byte[] key) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+        macs.add(newMac());
+    }
+
+    /**
+     * @param token the token to hash
+     * @return the 32-byte HMAC of the UTF-8 encoded token
+     */
+    public byte[] hash(String token) {
+        var mac = macs.poll();
+        if (mac == null) {
+            mac = newMac();
+        }
+        try {
+            return mac.doFinal(token.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            macs.offer(mac);
+        }
+    }
+
+    private Mac newMac() {
+        try {
+            var mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+        }
+    }
+}
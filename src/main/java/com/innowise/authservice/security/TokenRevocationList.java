@@ -0,0 +1,90 @@
+package com.innowise.authservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * In-memory list of revoked tokens, so validation can reject them without querying the database.
+ * Single tokens are kept by {@code jti} until their own expiration. Revoking a subject rejects every
+ * token issued to it up to that moment and is kept for the access token TTL, after which all such
+ * access tokens have expired anyway. The list is local to this instance.
+ * <p>
+ * Entries are only ever removed once they expire, never to make room, as a dropped entry would make a
+ * revoked token valid again. The size is bounded by the revocations within one access token TTL.
+ */
+@Component
+public class TokenRevocationList {
+    private final Cache<String, Instant> revokedTokens;
+    private final Cache<String, Instant> revokedSubjects;
+
+    public TokenRevocationList(JwtProperties properties, MeterRegistry meterRegistry) {
+        this.revokedTokens = Caffeine.newBuilder()
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        this.revokedSubjects = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(properties.getAccessTokenTtl()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, revokedTokens, "revokedTokens");
+        CaffeineCacheMetrics.monitor(meterRegistry, revokedSubjects, "revokedSubjects");
+    }
+
+    /**
+     * Revokes a single verified token until it expires. Tokens issued without a {@code jti} are ignored.
+     *
+     * @param verification the verification of the token to revoke
+     */
+    public void revoke(TokenVerification verification) {
+        if (verification.valid() && verification.tokenId() != null) {
+            revokedTokens.put(verification.tokenId(), verification.expiresAt());
+        }
+    }
+
+    /**
+     * Revokes all tokens issued to the subject so far.
+     *
+     * @param subject the token subject (user ID)
+     */
+    public void revokeSubject(String subject) {
+        // iat has second precision, so a token issued within this second counts as issued before
+        revokedSubjects.put(subject, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    /**
+     * @param verification a successful token verification
+     * @return whether the token itself or its subject was revoked
+     */
+    public boolean isRevoked(TokenVerification verification) {
+        if (verification.tokenId() != null && revokedTokens.getIfPresent(verification.tokenId()) != null) {
+            return true;
+        }
+        var revokedAt = verification.subject() != null ? revokedSubjects.getIfPresent(verification.subject()) : null;
+        return revokedAt != null && (verification.issuedAt() == null || !verification.issuedAt().isAfter(revokedAt));
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, Instant> {
+        @Override
+        public long expireAfterCreate(String key, Instant expiresAt, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Instant expiresAt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, expiresAt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Instant expiresAt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
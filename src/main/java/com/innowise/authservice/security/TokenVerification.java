@@ -0,0 +1,71 @@
+package com.innowise.authservice.security;
+
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Result of verifying a token once: either the claims callers need or the reason verification failed.
+ *
+ * @param valid         whether signature, expiry and revocation checks passed
+ * @param tokenId       the {@code jti} claim, null if invalid or issued without one
+ * @param subject       the token subject (user ID), null if invalid
+ * @param role          the role claim, null for refresh tokens and invalid tokens
+ * @param issuedAt      the {@code iat} claim, null if invalid or issued without one
+ * @param expiresAt     the expiration time, null if invalid
+ * @param type          the token type, null if invalid
+ * @param failureReason why verification failed, null if valid
+ */
+public record TokenVerification(
+        boolean valid,
+        String tokenId,
+        String subject,
+        String role,
+        Instant issuedAt,
+        Instant expiresAt,
+        Type type,
+        FailureReason failureReason
+) {
+    /**
+     * Outcome tag of token metrics for valid tokens.
+     */
+    public static final String VALID_OUTCOME = "valid";
+
+    public static TokenVerification verified(String tokenId, String subject, String role,
+                                             Instant issuedAt, Instant expiresAt) {
+        var type = role != null && !role.isBlank() ? Type.ACCESS : Type.REFRESH;
+        return new TokenVerification(true, tokenId, subject, role, issuedAt, expiresAt, type, null);
+    }
+
+    public static TokenVerification failed(FailureReason failureReason) {
+        return new TokenVerification(false, null, null, null, null, null, null, failureReason);
+    }
+
+    public boolean isAccessToken() {
+        return valid && type == Type.ACCESS;
+    }
+
+    public boolean isRefreshToken() {
+        return valid && type == Type.REFRESH;
+    }
+
+    /**
+     * @return the lower-case failure reason, used as the outcome tag of token metrics next to {@code valid}
+     */
+    public static String outcome(FailureReason failureReason) {
+        return failureReason.name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Type {
+        ACCESS,
+        REFRESH
+    }
+
+    public enum FailureReason {
+        EXPIRED,
+        UNSUPPORTED,
+        MALFORMED,
+        INVALID_SIGNATURE,
+        REVOKED,
+        INVALID
+    }
+}
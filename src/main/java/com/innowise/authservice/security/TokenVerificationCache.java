@@ -0,0 +1,102 @@
+package com.innowise.authservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of successful access token verifications, keyed by SHA-256 digest of the token.
+ * Entries expire no later than the {@code exp} claim of the cached token, so a hit is always a token
+ * that would still pass verification. Only valid access tokens are cached.
+ */
+@Component
+public class TokenVerificationCache {
+    private final boolean enabled;
+    private final Cache<String, TokenVerification> cache;
+
+    public TokenVerificationCache(JwtProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.getVerificationCache().isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getVerificationCache().getMaximumSize())
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "tokenVerifications");
+    }
+
+    /**
+     * Returns the cached verification of a token, verifying and caching it on a miss.
+     *
+     * @param token    the token to verify
+     * @param verifier the verification to run on a cache miss
+     * @return the cached or freshly computed verification
+     */
+    public TokenVerification get(String token, Function<String, TokenVerification> verifier) {
+        if (!enabled) {
+            return verifier.apply(token);
+        }
+
+        var key = digest(token);
+        var cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        var verification = verifier.apply(token);
+        if (verification.isAccessToken()) {
+            cache.put(key, verification);
+        }
+        return verification;
+    }
+
+    /**
+     * Drops cached verifications of all tokens issued to the given subjects in a single pass over the cache.
+     *
+     * @param subjects the token subjects (user IDs)
+     */
+    public void invalidateSubjects(Set<String> subjects) {
+        cache.asMap().values().removeIf(verification -> subjects.contains(verification.subject()));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static String digest(String token) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class UntilTokenExpires implements Expiry<String, TokenVerification> {
+        @Override
+        public long expireAfterCreate(String key, TokenVerification value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, TokenVerification value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, TokenVerification value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.innowise.authservice.service;
 
 import com.innowise.authservice.dto.*;
+import com.innowise.authservice.security.TokenVerification;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -33,6 +37,13 @@ public interface AuthService {
      */
     AuthResponse refresh(RefreshTokenRequest request);
 
+    /**
+     * Revokes the access and refresh tokens of a session. Tokens that are already invalid are ignored.
+     *
+     * @param request the logout request containing the tokens to revoke
+     */
+    void logout(LogoutRequest request);
+
     /**
      * Validates if a given token is valid.
      *
@@ -41,6 +52,24 @@ public interface AuthService {
      */
     Boolean validate(ValidateTokenRequest request);
 
+    /**
+     * Verifies a token and returns its claims or the reason it is invalid.
+     *
+     * @param token the token to verify
+     * @return the verification result
+     */
+    TokenVerification verify(String token);
+
+    /**
+     * Verifies a batch of tokens. Large batches are split into chunks verified in parallel.
+     *
+     * @param tokens the tokens to verify
+     * @return the verification results in the order of the tokens
+     * @throws IllegalArgumentException if the batch is larger than the configured limit
+     * @throws java.util.concurrent.RejectedExecutionException if the validation pool is saturated
+     */
+    List<TokenVerification> verifyAll(List<String> tokens);
+
     /**
      * Deletes a user from the system.
      *
@@ -48,4 +77,12 @@ public interface AuthService {
      * @return true if the user was deleted successfully, false otherwise
      */
     Boolean delete(UUID id);
+
+    /**
+     * Deletes users and their refresh tokens with set-based statements, one chunk per transaction.
+     *
+     * @param ids the IDs of the users to delete
+     * @return the IDs of the users that existed and were deleted
+     */
+    Set<UUID> deleteAll(Collection<UUID> ids);
 }
\ No newline at end of file
@@ -2,6 +2,11 @@ package com.innowise.authservice.service;
 
 import com.innowise.authservice.dto.AuthResponse;
 import com.innowise.authservice.entity.User;
+import com.innowise.authservice.security.TokenVerification;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
 
 /**
  * Service interface for handling generation of Auth Responses, validation,
@@ -16,13 +21,33 @@ public interface TokenService {
      */
     AuthResponse generateAuthResponse(User user);
 
+    /**
+     * Replaces a verified refresh token with a new one and issues a matching access token.
+     * The presented token is revoked in the same statement that stores the new one.
+     *
+     * @param refreshToken the presented refresh token
+     * @param verification the verification of the presented refresh token
+     * @return the new token pair, empty if the token is unknown, expired or was already rotated
+     */
+    Optional<AuthResponse> rotate(String refreshToken, TokenVerification verification);
+
     /**
      * Hashes a token using HMAC algorithm for secure storage.
      *
      * @param token the token to hash
-     * @return hashed representation of the token
+     * @return the raw HMAC bytes of the token
      */
-    String hashToken(String token);
+    byte[] hashToken(String token);
+
+    /**
+     * Verifies a token once and returns its claims, type and failure reason.
+     * Revoked tokens fail with {@link TokenVerification.FailureReason#REVOKED}.
+     * Callers should reuse the result instead of checking validity and type separately.
+     *
+     * @param token the token to verify
+     * @return the verification result
+     */
+    TokenVerification verify(String token);
 
     /**
      * Validates if a given token is valid and not expired.
@@ -33,10 +58,22 @@ public interface TokenService {
     boolean validate(String token);
 
     /**
-     * Checks if a given token is an access token by verifying if it contains a role claim.
+     * Revokes the access and refresh token of a session: the access token goes to the in-memory
+     * revocation list until it expires, the refresh token is marked revoked in the database.
+     * Tokens that fail verification are skipped.
+     *
+     * @param accessToken  the access token to revoke
+     * @param refreshToken the refresh token to revoke
+     * @throws com.innowise.authservice.exception.TokenOwnerMismatchException if both tokens are valid
+     *                                                                        but issued to different users
+     */
+    void revokeSession(String accessToken, String refreshToken);
+
+    /**
+     * Revokes all tokens issued to the users so far and forgets their cached verifications,
+     * e.g. after the users are deleted.
      *
-     * @param token the token to check
-     * @return true if the token is an access token, false otherwise
+     * @param userIds the IDs of the users whose tokens are invalidated
      */
-    boolean isAccessToken(String token);
+    void invalidateUserTokens(Collection<UUID> userIds);
 }
@@ -1,12 +1,17 @@
 package com.innowise.authservice.service.impl;
 
+import com.google.common.base.Suppliers;
 import com.innowise.authservice.dto.*;
+import com.innowise.authservice.entity.User;
 import com.innowise.authservice.exception.InvalidRefreshTokenException;
 import com.innowise.authservice.exception.InvalidUserCredentialsException;
+import com.innowise.authservice.exception.PasswordHashingUnavailableException;
 import com.innowise.authservice.exception.UserAlreadyExistsException;
 import com.innowise.authservice.mapper.UserMapper;
-import com.innowise.authservice.repository.RefreshTokenRepository;
 import com.innowise.authservice.repository.UserRepository;
+import com.innowise.authservice.security.JwtProperties;
+import com.innowise.authservice.security.KnownEmails;
+import com.innowise.authservice.security.TokenVerification;
 import com.innowise.authservice.service.AuthService;
 import com.innowise.authservice.service.TokenService;
 import lombok.RequiredArgsConstructor;
@@ -14,8 +19,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
  * Implementation of AuthService that handles authentication-related operations.
@@ -25,23 +39,34 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Slf4j
 public class AuthServiceImpl implements AuthService {
+    private static final int DELETE_CHUNK_SIZE = 1_000;
+
     private final UserMapper userMapper;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final RefreshTokenRepository refreshTokenRepository;
     private final TokenService tokenService;
+    private final JwtProperties jwtProperties;
+    private final ExecutorService tokenValidationExecutor;
+    private final KnownEmails knownEmails;
+
+    /**
+     * Hash of a random password, matched against for unknown emails so their logins take as long as wrong passwords.
+     */
+    private final Supplier<String> dummyPasswordHash = Suppliers.memoize(this::encodeRandomPassword);
 
     @Override
     public CredentialsResponse saveCredentials(SaveCredentialsRequest request) {
         log.debug("Signing up user with email: {}", request.email());
-        if (userRepository.existsByEmail(request.email())) {
-            throw new UserAlreadyExistsException(request.email());
-        }
-
         var user = userMapper.toUser(request);
         user.setPassword(passwordEncoder.encode(request.password()));
 
-        var savedUser = userRepository.save(user);
+        var savedUser = userRepository.insertIfEmailAbsent(UUID.randomUUID(), UUID.randomUUID(),
+                        user.getEmail(), user.getPassword(), user.getRole())
+                .orElseThrow(() -> {
+                    knownEmails.add(request.email());
+                    return new UserAlreadyExistsException(request.email());
+                });
+        knownEmails.add(savedUser.getEmail());
         log.debug("User with email: {} signed up successfully", savedUser.getEmail());
         return userMapper.toUserResponse(savedUser);
     }
@@ -49,8 +74,17 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public AuthResponse login(LoginRequest request) {
         log.debug("Logging in user with email: {}", request.email());
-        var user = userRepository.findByEmail(request.email()).orElseThrow(InvalidUserCredentialsException::new);
+        if (!knownEmails.mightExist(request.email())) {
+            log.debug("Email: {} is not registered", request.email());
+            throw rejectUnknownEmail(request.password());
+        }
+        var user = userRepository.findByEmail(request.email()).orElse(null);
+        if (user == null) {
+            knownEmails.markUnknown(request.email());
+            throw rejectUnknownEmail(request.password());
+        }
         if (passwordEncoder.matches(request.password(), user.getPassword())) {
+            upgradePasswordEncoding(user, request.password());
             log.debug("User with email: {} logged in successfully", request.email());
             return tokenService.generateAuthResponse(user);
         } else {
@@ -61,33 +95,129 @@ public class AuthServiceImpl implements AuthService {
     @Override
     public AuthResponse refresh(RefreshTokenRequest request) {
         log.debug("Refreshing token");
-        if (!tokenService.validate(request.refreshToken())) {
+        var verification = tokenService.verify(request.refreshToken());
+        if (!verification.isRefreshToken()) {
             log.debug("Refresh token is invalid.");
             throw new InvalidRefreshTokenException();
         }
 
-        var refreshTokenHash = tokenService.hashToken(request.refreshToken());
-        var refreshToken = refreshTokenRepository.findByTokenHash(refreshTokenHash)
-                .filter(token -> !token.getIsRevoked() && token.getExpiresAt().isAfter(Instant.now()))
-                .orElseThrow(InvalidRefreshTokenException::new);
+        return tokenService.rotate(request.refreshToken(), verification)
+                .orElseThrow(() -> {
+                    log.debug("Refresh token is unknown, expired or was already used");
+                    return new InvalidRefreshTokenException();
+                });
+    }
 
-        log.debug("Refresh token is valid. Generating auth response");
-        return tokenService.generateAuthResponse(refreshToken.getUser());
+    @Override
+    public void logout(LogoutRequest request) {
+        log.debug("Logging out");
+        tokenService.revokeSession(request.accessToken(), request.refreshToken());
     }
 
     @Override
     public Boolean validate(ValidateTokenRequest request) {
         log.debug("Validating token");
-        return tokenService.validate(request.token()) && tokenService.isAccessToken(request.token());
+        return tokenService.verify(request.token()).isAccessToken();
+    }
+
+    @Override
+    public TokenVerification verify(String token) {
+        return tokenService.verify(token);
+    }
+
+    @Override
+    public List<TokenVerification> verifyAll(List<String> tokens) {
+        var batchValidation = jwtProperties.getBatchValidation();
+        if (tokens.size() > batchValidation.getMaxBatchSize()) {
+            throw new IllegalArgumentException("Batch of %d tokens exceeds the limit of %d"
+                    .formatted(tokens.size(), batchValidation.getMaxBatchSize()));
+        }
+
+        int chunkSize = batchValidation.getChunkSize();
+        if (tokens.size() <= chunkSize) {
+            return verifyChunk(tokens);
+        }
+
+        // The first chunk runs on the calling thread while the others are verified by the pool
+        var rest = new ArrayList<CompletableFuture<List<TokenVerification>>>();
+        for (int from = chunkSize; from < tokens.size(); from += chunkSize) {
+            var chunk = tokens.subList(from, Math.min(from + chunkSize, tokens.size()));
+            try {
+                rest.add(CompletableFuture.supplyAsync(() -> verifyChunk(chunk), tokenValidationExecutor));
+            } catch (RejectedExecutionException e) {
+                // A cancelled chunk is skipped once a worker takes it
+                rest.forEach(submitted -> submitted.cancel(false));
+                throw e;
+            }
+        }
+        var results = new ArrayList<TokenVerification>(tokens.size());
+        results.addAll(verifyChunk(tokens.subList(0, chunkSize)));
+        rest.forEach(chunk -> results.addAll(chunk.join()));
+        return results;
     }
 
     @Override
     public Boolean delete(UUID userId) {
-        return userRepository.findByUserId(userId)
-                .map(user -> {
-                    userRepository.delete(user);
-                    return true;
-                })
-                .orElse(false);
+        return !deleteAll(List.of(userId)).isEmpty();
+    }
+
+    @Override
+    public Set<UUID> deleteAll(Collection<UUID> userIds) {
+        var ids = List.copyOf(new LinkedHashSet<>(userIds));
+        var deleted = new HashSet<UUID>(ids.size());
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+            var chunk = ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size()));
+            var chunkDeleted = userRepository.deleteAllByUserIds(chunk);
+            if (!chunkDeleted.isEmpty()) {
+                tokenService.invalidateUserTokens(chunkDeleted);
+                knownEmails.removed(chunkDeleted.size());
+                deleted.addAll(chunkDeleted);
+            }
+        }
+        log.debug("Deleted {} of {} requested users", deleted.size(), ids.size());
+        return deleted;
+    }
+
+    private List<TokenVerification> verifyChunk(List<String> tokens) {
+        return tokens.stream()
+                .map(tokenService::verify)
+                .toList();
+    }
+
+    /**
+     * Spends the time of a password match on an unknown email, so the response does not reveal
+     * whether the email is registered.
+     *
+     * @param rawPassword the password the login was attempted with
+     * @return the exception to throw
+     */
+    private InvalidUserCredentialsException rejectUnknownEmail(String rawPassword) {
+        passwordEncoder.matches(rawPassword, dummyPasswordHash.get());
+        return new InvalidUserCredentialsException();
+    }
+
+    private String encodeRandomPassword() {
+        return passwordEncoder.encode(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Re-encodes the password of a user who has just logged in when the stored hash was made
+     * with another algorithm or cost than the current one. Skipped if the hashing pool is busy.
+     *
+     * @param user        the authenticated user
+     * @param rawPassword the password the user logged in with
+     */
+    private void upgradePasswordEncoding(User user, String rawPassword) {
+        if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+            return;
+        }
+        try {
+            var encodedPassword = passwordEncoder.encode(rawPassword);
+            userRepository.updatePassword(user.getId(), encodedPassword);
+            user.setPassword(encodedPassword);
+            log.debug("Password hash of user with email: {} re-encoded", user.getEmail());
+        } catch (PasswordHashingUnavailableException e) {
+            log.debug("Skipping password re-encoding, hashing pool is busy");
+        }
     }
 }
@@ -0,0 +1,207 @@
+package com.innowise.authservice.service.impl;
+
+import com.innowise.authservice.entity.RefreshToken;
+import com.innowise.authservice.repository.RefreshTokenRepository;
+import com.innowise.authservice.security.RefreshTokenWritesProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Inserts issued refresh tokens. When batching is enabled, tokens from concurrent logins are queued and a
+ * single writer thread inserts them in one transaction, flushed as JDBC batches, once the batch is full or
+ * its maximum delay has passed. Callers block until the transaction holding their token committed, so a
+ * token is never handed out before it is stored.
+ * <p>
+ * If a batch fails, its tokens are inserted one by one, so a single bad token only fails its own login.
+ * The writer is stopped by queueing a marker rather than by an interrupt, so the batch it is writing
+ * never runs with the interrupt flag set.
+ */
+@Component
+@Slf4j
+public class RefreshTokenWriter {
+    private static final PendingWrite STOP = new PendingWrite(null, null);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxBatchSize;
+    private final long maxDelay;
+    private final long writeTimeout;
+    private final BlockingQueue<PendingWrite> queue;
+    private final DistributionSummary batchSizes;
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    public RefreshTokenWriter(RefreshTokenWritesProperties properties, RefreshTokenRepository refreshTokenRepository,
+                              TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.maxDelay = properties.getMaxDelay().toNanos();
+        this.writeTimeout = properties.getWriteTimeout().toNanos();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.batchSizes = DistributionSummary.builder("auth.refresh.token.write.batch.size")
+                .description("Refresh tokens inserted per transaction by the batching writer")
+                .register(meterRegistry);
+        if (properties.isBatched()) {
+            writer = new Thread(this::run, "refresh-token-writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * Stores the token and returns once it is committed.
+     *
+     * @param token the refresh token to insert
+     * @throws IllegalStateException if the writer did not store the token within the write timeout
+     */
+    public void save(RefreshToken token) {
+        if (writer == null || closed) {
+            refreshTokenRepository.save(token);
+            return;
+        }
+        var write = new PendingWrite(token, new CompletableFuture<>());
+        if (!queue.offer(write)) {
+            log.debug("Refresh token write queue is full, inserting directly");
+            refreshTokenRepository.save(token);
+            return;
+        }
+        if (closed && queue.remove(write)) {
+            // The writer stopped before it could take the token
+            refreshTokenRepository.save(token);
+            return;
+        }
+        try {
+            write.result().get(writeTimeout, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (queue.remove(write)) {
+                log.debug("Refresh token was not taken by the writer in time, inserting directly");
+                refreshTokenRepository.save(token);
+                return;
+            }
+            throw new IllegalStateException("Refresh token was not stored in time", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while storing refresh token", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Refresh token could not be stored", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (writer == null || closed) {
+            return;
+        }
+        closed = true;
+        queue.put(STOP);
+        writer.join();
+        var remaining = new ArrayList<PendingWrite>();
+        queue.drainTo(remaining);
+        remaining.removeIf(write -> write == STOP);
+        write(remaining);
+    }
+
+    private void run() {
+        var batch = new ArrayList<PendingWrite>(maxBatchSize);
+        var stopped = false;
+        while (!stopped) {
+            try {
+                stopped = collect(batch);
+            } catch (InterruptedException e) {
+                // Throwing cleared the flag, so the batch is still written; only the stop marker ends the writer
+                log.warn("Refresh token writer was interrupted, it only stops when closed");
+            }
+            try {
+                write(batch);
+            } catch (Throwable e) {
+                log.error("Refresh token writer failed on a batch of {} tokens", batch.size(), e);
+                batch.forEach(write -> write.result().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Waits for a first token, then for more until the batch is full or the maximum delay has passed.
+     *
+     * @return true if the stop marker was taken, after which no further batch is collected
+     */
+    private boolean collect(List<PendingWrite> batch) throws InterruptedException {
+        var first = queue.take();
+        if (first == STOP) {
+            return true;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelay;
+        while (batch.size() < maxBatchSize) {
+            int from = batch.size();
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                if (batch.subList(from, batch.size()).removeIf(write -> write == STOP)) {
+                    return true;
+                }
+                continue;
+            }
+            var next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return false;
+            }
+            if (next == STOP) {
+                return true;
+            }
+            batch.add(next);
+        }
+        return false;
+    }
+
+    private void write(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    refreshTokenRepository.saveAll(batch.stream().map(PendingWrite::token).toList()));
+            batchSizes.record(batch.size());
+            batch.forEach(write -> write.result().complete(null));
+        } catch (Throwable e) {
+            log.warn("Batch of {} refresh tokens failed, inserting them one by one", batch.size(), e);
+            batch.forEach(this::writeAlone);
+        }
+    }
+
+    private void writeAlone(PendingWrite write) {
+        try {
+            // The failed batch may have assigned an ID already, which would make save merge instead of insert
+            write.token().setId(null);
+            refreshTokenRepository.save(write.token());
+            write.result().complete(null);
+        } catch (Throwable e) {
+            write.result().completeExceptionally(e);
+        }
+    }
+
+    private record PendingWrite(RefreshToken token, CompletableFuture<Void> result) {
+    }
+}
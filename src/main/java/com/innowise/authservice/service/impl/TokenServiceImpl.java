@@ -3,62 +3,156 @@ package com.innowise.authservice.service.impl;
 import com.innowise.authservice.dto.AuthResponse;
 import com.innowise.authservice.entity.RefreshToken;
 import com.innowise.authservice.entity.User;
+import com.innowise.authservice.exception.TokenOwnerMismatchException;
 import com.innowise.authservice.repository.RefreshTokenRepository;
+import com.innowise.authservice.repository.UserRepository;
+import com.innowise.authservice.security.IssuedToken;
+import com.innowise.authservice.security.JwtProperties;
 import com.innowise.authservice.security.JwtTokenProvider;
+import com.innowise.authservice.security.TokenHasher;
+import com.innowise.authservice.security.TokenRevocationList;
+import com.innowise.authservice.security.TokenVerification;
+import com.innowise.authservice.security.TokenVerificationCache;
 import com.innowise.authservice.service.TokenService;
-import lombok.RequiredArgsConstructor;
-import org.apache.commons.codec.digest.HmacUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of TokenService that handles generation of Auth Responses, validation
  * and gives access to hashing tokens and checking their type (access/refresh)
  */
 @Service
-@RequiredArgsConstructor
 public class TokenServiceImpl implements TokenService {
     private final JwtTokenProvider jwtTokenProvider;
-    private final HmacUtils hmacUtils;
+    private final TokenHasher tokenHasher;
     private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenWriter refreshTokenWriter;
+    private final TokenVerificationCache tokenVerificationCache;
+    private final TokenRevocationList tokenRevocationList;
+    private final UserRepository userRepository;
+    private final JwtProperties jwtProperties;
+    private final Counter validValidations;
+    private final Map<TokenVerification.FailureReason, Counter> failedValidations =
+            new EnumMap<>(TokenVerification.FailureReason.class);
+
+    public TokenServiceImpl(JwtTokenProvider jwtTokenProvider, TokenHasher tokenHasher,
+                            RefreshTokenRepository refreshTokenRepository, RefreshTokenWriter refreshTokenWriter,
+                            TokenVerificationCache tokenVerificationCache, TokenRevocationList tokenRevocationList,
+                            UserRepository userRepository, JwtProperties jwtProperties, MeterRegistry meterRegistry) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenHasher = tokenHasher;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.refreshTokenWriter = refreshTokenWriter;
+        this.tokenVerificationCache = tokenVerificationCache;
+        this.tokenRevocationList = tokenRevocationList;
+        this.userRepository = userRepository;
+        this.jwtProperties = jwtProperties;
+        this.validValidations = meterRegistry.counter("auth.token.validations", "outcome",
+                TokenVerification.VALID_OUTCOME);
+        for (var failureReason : TokenVerification.FailureReason.values()) {
+            failedValidations.put(failureReason, meterRegistry.counter("auth.token.validations", "outcome",
+                    TokenVerification.outcome(failureReason)));
+        }
+    }
 
     @Override
     public AuthResponse generateAuthResponse(User user) {
         var access = jwtTokenProvider.generateAccessToken(user.getUserId(), Map.of("role", user.getRole()));
         var refresh = jwtTokenProvider.generateRefreshToken(user.getUserId());
         saveRefreshToken(refresh, user);
-        return new AuthResponse(access, refresh);
+        return new AuthResponse(access, refresh.value());
+    }
+
+    @Override
+    public Optional<AuthResponse> rotate(String refreshToken, TokenVerification verification) {
+        var refresh = jwtTokenProvider.generateRefreshToken(UUID.fromString(verification.subject()));
+        return refreshTokenRepository.rotate(hashToken(refreshToken), hashToken(refresh.value()),
+                        refresh.expiresAt(), Instant.now())
+                .map(owner -> {
+                    var access = jwtTokenProvider.generateAccessToken(owner.userId(), Map.of("role", owner.role()));
+                    return new AuthResponse(access, refresh.value());
+                });
     }
 
     @Override
-    public String hashToken(String token) {
-        return hmacUtils.hmacHex(token);
+    public byte[] hashToken(String token) {
+        return tokenHasher.hash(token);
+    }
+
+    @Override
+    public TokenVerification verify(String token) {
+        var verification = tokenVerificationCache.get(token, jwtTokenProvider::verify);
+        if (verification.valid() && (tokenRevocationList.isRevoked(verification) || isDeletedSubject(verification))) {
+            verification = TokenVerification.failed(TokenVerification.FailureReason.REVOKED);
+        }
+        (verification.valid() ? validValidations : failedValidations.get(verification.failureReason())).increment();
+        return verification;
     }
 
     @Override
     public boolean validate(String token) {
-        return jwtTokenProvider.validateToken(token);
+        return verify(token).valid();
     }
 
     @Override
-    public boolean isAccessToken(String token) {
-        var role = jwtTokenProvider.getStringClaim(token, "role");
-        return role != null && !role.isBlank();
+    public void revokeSession(String accessToken, String refreshToken) {
+        var access = jwtTokenProvider.verify(accessToken);
+        var refresh = jwtTokenProvider.verify(refreshToken);
+        if (access.valid() && refresh.valid() && !access.subject().equals(refresh.subject())) {
+            throw new TokenOwnerMismatchException();
+        }
+        revoke(accessToken, access);
+        revoke(refreshToken, refresh);
+    }
+
+    private void revoke(String token, TokenVerification verification) {
+        if (verification.isAccessToken()) {
+            tokenRevocationList.revoke(verification);
+        } else if (verification.isRefreshToken()) {
+            refreshTokenRepository.revokeByTokenHash(hashToken(token));
+        }
+    }
+
+    @Override
+    public void invalidateUserTokens(Collection<UUID> userIds) {
+        var subjects = userIds.stream()
+                .map(UUID::toString)
+                .collect(Collectors.toSet());
+        subjects.forEach(tokenRevocationList::revokeSubject);
+        tokenVerificationCache.invalidateSubjects(subjects);
+    }
+
+    /**
+     * In {@link JwtProperties.ValidationMode#DATABASE} mode, checks that the subject of an access token still exists.
+     */
+    private boolean isDeletedSubject(TokenVerification verification) {
+        return jwtProperties.getValidationMode() == JwtProperties.ValidationMode.DATABASE
+                && verification.isAccessToken()
+                && !userRepository.existsByUserId(UUID.fromString(verification.subject()));
     }
 
     /**
-     * Saves a refresh token to the database with its hash, expiration date, and user reference.
+     * Saves a refresh token to the database with its hash, expiration date, and user reference,
+     * batched with the tokens of concurrent logins if enabled.
      *
-     * @param token the refresh token to save
+     * @param token the issued refresh token to save
      * @param user the user associated with the token
      */
-    private void saveRefreshToken(String token, User user) {
-        refreshTokenRepository.save(
+    private void saveRefreshToken(IssuedToken token, User user) {
+        refreshTokenWriter.save(
                 RefreshToken.builder()
-                        .tokenHash(hashToken(token))
+                        .tokenHash(hashToken(token.value()))
                         .user(user)
-                        .expiresAt(jwtTokenProvider.getExpiresAt(token))
+                        .expiresAt(token.expiresAt())
                         .isRevoked(false)
                         .build()
         );
@@ -0,0 +1,47 @@
+package com.innowise.authservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innowise.authservice.dto.ApiResponse;
+import com.innowise.authservice.dto.AuthResponse;
+import com.innowise.authservice.security.JwtTokenProvider;
+import com.innowise.authservice.support.JwtFixture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing the login and refresh response body with an object mapper configured like
+ * the one Spring Boot uses for the REST controllers.
+ * Run with {@code mvn -Pbenchmark verify -DskipTests -Dbenchmark.include=ApiResponseSerializationBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseSerializationBenchmark {
+    private ObjectMapper objectMapper;
+    private ApiResponse<AuthResponse> response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        var jwtTokenProvider = new JwtTokenProvider(JwtFixture.properties(), new SimpleMeterRegistry());
+        var userId = UUID.randomUUID();
+        response = ApiResponse.success("User successfully logged in", new AuthResponse(
+                jwtTokenProvider.generateAccessToken(userId, Map.of("role", "ROLE_USER")),
+                jwtTokenProvider.generateRefreshToken(userId).value()));
+    }
+
+    @Benchmark
+    public byte[] writeAuthResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,59 @@
+package com.innowise.authservice.benchmark;
+
+import com.innowise.authservice.security.JwtTokenProvider;
+import com.innowise.authservice.support.JwtFixture;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares token validation through the pre-built parser of {@link JwtTokenProvider}
+ * with the previous approach of decoding the secret and building a parser on every call.
+ * Run with {@code mvn -Pbenchmark verify -DskipTests -Dbenchmark.include=JwtTokenProviderBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtTokenProviderBenchmark {
+    private JwtTokenProvider jwtTokenProvider;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtTokenProvider = new JwtTokenProvider(JwtFixture.properties(), new SimpleMeterRegistry());
+        accessToken = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtTokenProvider.validateToken(accessToken);
+    }
+
+    @Benchmark
+    public String verifyClaims() {
+        return jwtTokenProvider.verify(accessToken).subject();
+    }
+
+    @Benchmark
+    public boolean validateTokenWithPerCallParser() {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtFixture.SECRET)))
+                .build()
+                .parseSignedClaims(accessToken)
+                .getPayload() != null;
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+    }
+}
@@ -0,0 +1,38 @@
+package com.innowise.authservice.benchmark;
+
+import com.innowise.authservice.security.AdaptiveBCryptPasswordEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a BCrypt password match, the dominant cost of a login, at the strengths the startup
+ * calibration can choose from. Throughput per thread is the login rate a single hashing worker sustains.
+ * Run with {@code mvn -Pbenchmark verify -DskipTests -Dbenchmark.include=PasswordEncoderBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+    private static final String PASSWORD = "Password1";
+
+    @Param({"10", "12", "14"})
+    private int strength;
+
+    private AdaptiveBCryptPasswordEncoder encoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        encoder = new AdaptiveBCryptPasswordEncoder(strength, false);
+        encodedPassword = encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, encodedPassword);
+    }
+}
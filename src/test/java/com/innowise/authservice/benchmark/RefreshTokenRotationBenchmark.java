@@ -0,0 +1,137 @@
+package com.innowise.authservice.benchmark;
+
+import com.innowise.authservice.InternshipAuthServiceApplication;
+import com.innowise.authservice.dto.SaveCredentialsRequest;
+import com.innowise.authservice.entity.RefreshToken;
+import com.innowise.authservice.repository.RefreshTokenRepository;
+import com.innowise.authservice.repository.UserRepository;
+import com.innowise.authservice.service.AuthService;
+import com.innowise.authservice.support.JwtFixture;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the database work of a refresh: the previous path, which loaded the {@link RefreshToken}
+ * entity with its eagerly fetched user and saved the new token as another entity, with the single
+ * revoke-and-issue statement that only returns the user ID and role. Runs against Postgres in
+ * Testcontainers with {@value #SEEDED_TOKENS} seeded tokens and prints the average row width each
+ * path reads. Requires Docker.
+ * Run with {@code mvn -Pbenchmark verify -DskipTests -Dbenchmark.include=RefreshTokenRotationBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RefreshTokenRotationBenchmark {
+    private static final int SEEDED_TOKENS = 100_000;
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private RefreshTokenRepository refreshTokenRepository;
+    private UserRepository userRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate transactionTemplate;
+
+    private byte[] lookupHash;
+    private byte[] rotatedHash;
+
+    @Setup
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15");
+        postgres.start();
+        context = new SpringApplicationBuilder(InternshipAuthServiceApplication.class)
+                .run("--spring.main.web-application-type=none",
+                        "--spring.docker.compose.enabled=false",
+                        "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "--spring.datasource.username=" + postgres.getUsername(),
+                        "--spring.datasource.password=" + postgres.getPassword(),
+                        "--spring.security.jwt.secret=" + JwtFixture.SECRET,
+                        "--eureka.client.enabled=false",
+                        "--grpc.server.port=-1",
+                        "--logging.level.root=warn");
+        refreshTokenRepository = context.getBean(RefreshTokenRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        var request = new SaveCredentialsRequest("benchmark@email.com", "Password1");
+        context.getBean(AuthService.class).saveCredentials(request);
+        var user = userRepository.findByEmail(request.email()).orElseThrow();
+
+        var jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("""
+                INSERT INTO refresh_tokens (id, user_id, token_hash, expires_at)
+                SELECT gen_random_uuid(), ?, sha256(g::text::bytea), now() + interval '1 day'
+                FROM generate_series(1, ?) g
+                """, user.getId(), SEEDED_TOKENS);
+        jdbcTemplate.execute("ANALYZE refresh_tokens");
+        lookupHash = jdbcTemplate.queryForObject("SELECT sha256('1'::bytea)", byte[].class);
+        rotatedHash = jdbcTemplate.queryForObject("SELECT sha256('2'::bytea)", byte[].class);
+
+        var widths = jdbcTemplate.queryForMap("""
+                SELECT avg(pg_column_size(t.*) + pg_column_size(u.*)) AS entity,
+                       avg(pg_column_size(ROW(u.user_id, u.role))) AS projection
+                FROM refresh_tokens t
+                JOIN users u ON u.id = t.user_id
+                """);
+        System.out.printf("Average row width read per refresh: entity %s bytes, projection %s bytes%n",
+                widths.get("entity"), widths.get("projection"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    /**
+     * The previous refresh: token entity with its user, then the new token saved as an entity.
+     */
+    @Benchmark
+    public UUID entityLookupAndSave() {
+        return transactionTemplate.execute(status -> {
+            var token = entityManager
+                    .createQuery("select t from RefreshToken t where t.tokenHash = :tokenHash", RefreshToken.class)
+                    .setParameter("tokenHash", lookupHash)
+                    .getSingleResult();
+            var user = token.getUser();
+            refreshTokenRepository.save(RefreshToken.builder()
+                    .tokenHash(randomHash())
+                    .user(user)
+                    .expiresAt(Instant.now().plus(1, ChronoUnit.DAYS))
+                    .build());
+            return user.getUserId();
+        });
+    }
+
+    /**
+     * The current refresh: one statement revoking the token, inserting its successor and returning the owner.
+     */
+    @Benchmark
+    public UUID projectionRotate() {
+        var next = randomHash();
+        var owner = refreshTokenRepository.rotate(rotatedHash, next, Instant.now().plus(1, ChronoUnit.DAYS), Instant.now())
+                .orElseThrow();
+        rotatedHash = next;
+        return owner.userId();
+    }
+
+    private static byte[] randomHash() {
+        var hash = new byte[32];
+        ThreadLocalRandom.current().nextBytes(hash);
+        return hash;
+    }
+}
@@ -0,0 +1,55 @@
+package com.innowise.authservice.benchmark;
+
+import com.innowise.authservice.security.JwtTokenProvider;
+import com.innowise.authservice.security.TokenHasher;
+import com.innowise.authservice.support.JwtFixture;
+import io.jsonwebtoken.io.Decoders;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures hashing a refresh token, which happens on every login, refresh and logout before the hash is
+ * looked up or stored. Compares the pooled {@link TokenHasher} producing raw bytes with the previous
+ * hex-encoded {@link HmacUtils}, here confined to one thread because a shared instance is not thread-safe.
+ * Runs on several threads to include contention on the pool.
+ * Run with {@code mvn -Pbenchmark verify -DskipTests -Dbenchmark.include=TokenHashingBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TokenHashingBenchmark {
+    private TokenHasher tokenHasher;
+    private String refreshToken;
+
+    @State(Scope.Thread)
+    public static class ThreadHmac {
+        private final HmacUtils hmacUtils = new HmacUtils(HmacAlgorithms.HMAC_SHA_256, Decoders.BASE64.decode(JwtFixture.SECRET));
+    }
+
+    @Setup
+    public void setUp() {
+        var properties = JwtFixture.properties();
+        tokenHasher = new TokenHasher(properties);
+        var jwtTokenProvider = new JwtTokenProvider(properties, new SimpleMeterRegistry());
+        refreshToken = jwtTokenProvider.generateRefreshToken(UUID.randomUUID()).value();
+    }
+
+    @Benchmark
+    public byte[] pooledMac() {
+        return tokenHasher.hash(refreshToken);
+    }
+
+    @Benchmark
+    public String hmacHex(ThreadHmac state) {
+        return state.hmacUtils.hmacHex(refreshToken);
+    }
+}
@@ -0,0 +1,68 @@
+package com.innowise.authservice.config;
+
+import io.grpc.ServerBuilder;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadConfigTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @DisplayName("Should run gRPC calls on virtual threads when they are enabled")
+    void givenVirtualThreadsEnabled_whenConfigureServer_thenExecutorRunsOnVirtualThreads() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            // Given
+            var serverBuilder = mock(ServerBuilder.class);
+            var executor = ArgumentCaptor.forClass(Executor.class);
+            var virtual = new CompletableFuture<Boolean>();
+
+            // When
+            context.getBean(GrpcServerConfigurer.class).accept(serverBuilder);
+            verify(serverBuilder, times(1)).executor(executor.capture());
+            executor.getValue().execute(() -> virtual.complete(isVirtual(Thread.currentThread())));
+
+            // Then
+            assertTrue(virtual.get(5, TimeUnit.SECONDS));
+        });
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    @DisplayName("Should keep the default gRPC executor when the JVM has no virtual threads")
+    void givenVirtualThreadsEnabledBeforeJava21_whenStartContext_thenNoServerConfigurer() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context ->
+                assertTrue(context.getBeansOfType(GrpcServerConfigurer.class).isEmpty()));
+    }
+
+    @Test
+    @DisplayName("Should keep the default gRPC executor when virtual threads are disabled")
+    void givenVirtualThreadsDisabled_whenStartContext_thenNoServerConfigurer() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=false").run(context ->
+                assertTrue(context.getBeansOfType(GrpcServerConfigurer.class).isEmpty()));
+    }
+
+    /**
+     * {@code Thread.isVirtual()} only exists from Java 21 on, while the code is compiled for Java 17.
+     */
+    private static boolean isVirtual(Thread thread) {
+        try {
+            return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+}
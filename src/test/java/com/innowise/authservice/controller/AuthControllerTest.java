@@ -14,14 +14,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -235,6 +240,35 @@ class AuthControllerTest {
             assertFalse(response.getBody().isSuccess());
             assertNull(response.getBody().getData());
         }
+
+        @Test
+        @DisplayName("Should return TOO_MANY_REQUESTS when account attempts are exhausted")
+        void givenRepeatedFailedLogins_whenLogin_thenReturnsTooManyRequests() throws Exception {
+            // Given
+            var request = new LoginRequest(
+                    "THROTTLED@EMAIL",
+                    "Password1"
+            );
+            for (int i = 0; i < 10; i++) {
+                restTemplate.postForEntity(URI.LOGIN, request, String.class);
+            }
+
+            // When
+            // Sent without the test client, which would wait for Retry-After and repeat the request
+            var response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(java.net.URI.create(restTemplate.getRootUri() + URI.LOGIN))
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .POST(HttpRequest.BodyPublishers.ofString(
+                                    "{\"email\":\"%s\",\"password\":\"%s\"}".formatted(request.email(), request.password())))
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString()
+            );
+
+            // Then
+            assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.statusCode());
+            assertTrue(response.headers().firstValue(HttpHeaders.RETRY_AFTER).isPresent());
+            assertTrue(response.body().contains("\"success\":false"));
+        }
     }
 
     @Nested
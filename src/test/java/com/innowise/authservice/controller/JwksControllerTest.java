@@ -0,0 +1,77 @@
+package com.innowise.authservice.controller;
+
+import com.innowise.authservice.security.JsonWebKeySet;
+import com.innowise.authservice.security.JwtProperties;
+import com.innowise.authservice.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwksControllerTest {
+    private static final JsonWebKeySet KEY_SET = new JsonWebKeySet("{\"keys\":[]}", "\"k9Zq3v\"");
+
+    @Mock
+    private JwtTokenProvider jwtTokenProvider;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new JwtProperties();
+        properties.getSigning().setJwksMaxAge(Duration.ofMinutes(5));
+        mockMvc = MockMvcBuilders.standaloneSetup(new JwksController(jwtTokenProvider, properties)).build();
+    }
+
+    @Test
+    @DisplayName("Should publish the key set with cache headers and its ETag")
+    void givenKeySet_whenGetJwks_thenReturnsKeySetWithCacheControlAndETag() throws Exception {
+        // When
+        when(jwtTokenProvider.jsonWebKeySet()).thenReturn(KEY_SET);
+
+        // Then
+        mockMvc.perform(get("/.well-known/jwks.json"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=300, public"))
+                .andExpect(header().string(HttpHeaders.ETAG, KEY_SET.eTag()))
+                .andExpect(content().json(KEY_SET.json()));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 without a body when the consumer already has the key set")
+    void givenMatchingETag_whenGetJwks_thenReturnsNotModified() throws Exception {
+        // When
+        when(jwtTokenProvider.jsonWebKeySet()).thenReturn(KEY_SET);
+
+        // Then
+        mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, KEY_SET.eTag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, KEY_SET.eTag()))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Should return the key set when the consumer has an outdated copy")
+    void givenStaleETag_whenGetJwks_thenReturnsKeySet() throws Exception {
+        // When
+        when(jwtTokenProvider.jsonWebKeySet()).thenReturn(KEY_SET);
+
+        // Then
+        mockMvc.perform(get("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, "\"outdated\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, KEY_SET.eTag()))
+                .andExpect(content().json(KEY_SET.json()));
+    }
+}
@@ -1,7 +1,9 @@
 package com.innowise.authservice.grpc;
 
 import com.innowise.authservice.generated.Auth;
+import com.innowise.authservice.security.TokenVerification;
 import com.innowise.authservice.service.AuthService;
+import io.grpc.Status;
 import io.grpc.stub.StreamObserver;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,7 +12,12 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 
@@ -22,6 +29,15 @@ public class AuthGrpcServiceTest {
     @Mock
     private StreamObserver<Auth.DeleteUserResponse> responseObserver;
 
+    @Mock
+    private StreamObserver<Auth.TokenValidation> validationObserver;
+
+    @Mock
+    private StreamObserver<Auth.ValidateTokensResponse> batchObserver;
+
+    @Mock
+    private StreamObserver<Auth.DeleteUsersResponse> deleteUsersObserver;
+
     @InjectMocks
     private AuthGrpcService authGrpcService;
 
@@ -91,4 +107,195 @@ public class AuthGrpcServiceTest {
         verify(responseObserver, never()).onNext(any());
         verify(responseObserver, never()).onCompleted();
     }
+
+    @Test
+    @DisplayName("Should return claims of valid token")
+    void givenValidToken_whenValidateToken_thenReturnsClaims() {
+        // Given
+        var userId = UUID.randomUUID();
+        var expiresAt = Instant.now().plusSeconds(900);
+        var request = Auth.ValidateTokenRequest.newBuilder()
+                .setToken("ACCESS")
+                .build();
+
+        // When
+        when(authService.verify("ACCESS")).thenReturn(TokenVerification.verified(
+                UUID.randomUUID().toString(), userId.toString(), "ROLE_USER", Instant.now(), expiresAt));
+
+        authGrpcService.validateToken(request, validationObserver);
+
+        // Then
+        verify(validationObserver, times(1)).onNext(
+                Auth.TokenValidation.newBuilder()
+                        .setValid(true)
+                        .setSubject(userId.toString())
+                        .setRole("ROLE_USER")
+                        .setExpiresAt(expiresAt.getEpochSecond())
+                        .build()
+        );
+        verify(validationObserver, times(1)).onCompleted();
+    }
+
+    @Test
+    @DisplayName("Should report refresh token as invalid")
+    void givenRefreshToken_whenValidateToken_thenReturnsInvalid() {
+        // Given
+        var request = Auth.ValidateTokenRequest.newBuilder()
+                .setToken("REFRESH")
+                .build();
+
+        // When
+        when(authService.verify("REFRESH")).thenReturn(TokenVerification.verified(
+                UUID.randomUUID().toString(), UUID.randomUUID().toString(), null,
+                Instant.now(), Instant.now().plusSeconds(604_800)));
+
+        authGrpcService.validateToken(request, validationObserver);
+
+        // Then
+        verify(validationObserver, times(1)).onNext(
+                Auth.TokenValidation.newBuilder()
+                        .setFailureReason("INVALID")
+                        .build()
+        );
+        verify(validationObserver, times(1)).onCompleted();
+    }
+
+    @Test
+    @DisplayName("Should return per-token results for batch in request order")
+    void givenTokens_whenValidateTokens_thenReturnsResultsInOrder() {
+        // Given
+        var request = Auth.ValidateTokensRequest.newBuilder()
+                .addTokens("EXPIRED")
+                .addTokens("MALFORMED")
+                .build();
+
+        // When
+        when(authService.verifyAll(List.of("EXPIRED", "MALFORMED"))).thenReturn(List.of(
+                TokenVerification.failed(TokenVerification.FailureReason.EXPIRED),
+                TokenVerification.failed(TokenVerification.FailureReason.MALFORMED)));
+
+        authGrpcService.validateTokens(request, batchObserver);
+
+        // Then
+        verify(batchObserver, times(1)).onNext(
+                Auth.ValidateTokensResponse.newBuilder()
+                        .addResults(Auth.TokenValidation.newBuilder().setFailureReason("EXPIRED"))
+                        .addResults(Auth.TokenValidation.newBuilder().setFailureReason("MALFORMED"))
+                        .build()
+        );
+        verify(batchObserver, times(1)).onCompleted();
+    }
+
+    @Test
+    @DisplayName("Should return invalid argument when batch is too large")
+    void givenTooLargeBatch_whenValidateTokens_thenReturnsStatusInvalidArgument() {
+        // Given
+        var request = Auth.ValidateTokensRequest.newBuilder()
+                .addTokens("TOKEN")
+                .build();
+
+        // When
+        when(authService.verifyAll(any())).thenThrow(new IllegalArgumentException("too large"));
+
+        authGrpcService.validateTokens(request, batchObserver);
+
+        // Then
+        verify(batchObserver, times(1)).onError(argThat(error ->
+                Status.fromThrowable(error).getCode() == Status.Code.INVALID_ARGUMENT));
+        verify(batchObserver, never()).onNext(any());
+    }
+
+    @Test
+    @DisplayName("Should return resource exhausted when the validation pool is saturated")
+    void givenSaturatedPool_whenValidateTokens_thenReturnsStatusResourceExhausted() {
+        // Given
+        var request = Auth.ValidateTokensRequest.newBuilder()
+                .addTokens("TOKEN")
+                .build();
+
+        // When
+        when(authService.verifyAll(any())).thenThrow(new RejectedExecutionException());
+
+        authGrpcService.validateTokens(request, batchObserver);
+
+        // Then
+        verify(batchObserver, times(1)).onError(argThat(error ->
+                Status.fromThrowable(error).getCode() == Status.Code.RESOURCE_EXHAUSTED));
+        verify(batchObserver, never()).onNext(any());
+    }
+
+    @Test
+    @DisplayName("Should return invalid argument when deletion batch is too large")
+    void givenTooLargeDeletionBatch_whenDeleteUsers_thenReturnsStatusInvalidArgument() {
+        // Given
+        var request = Auth.DeleteUsersRequest.newBuilder()
+                .addAllUserIds(Stream.generate(() -> UUID.randomUUID().toString())
+                        .limit(AuthGrpcService.MAX_DELETE_BATCH_SIZE + 1)
+                        .toList())
+                .build();
+
+        // When
+        authGrpcService.deleteUsers(request, deleteUsersObserver);
+
+        // Then
+        verify(deleteUsersObserver, times(1)).onError(argThat(error ->
+                Status.fromThrowable(error).getCode() == Status.Code.INVALID_ARGUMENT));
+        verify(deleteUsersObserver, never()).onNext(any());
+        verifyNoInteractions(authService);
+    }
+
+    @Test
+    @DisplayName("Should return per-ID results of batch deletion")
+    void givenUserIds_whenDeleteUsers_thenReturnsResultPerId() {
+        // Given
+        var deletedId = UUID.randomUUID();
+        var missingId = UUID.randomUUID();
+        var request = Auth.DeleteUsersRequest.newBuilder()
+                .addUserIds(deletedId.toString())
+                .addUserIds("invalid-user-id")
+                .addUserIds(missingId.toString())
+                .build();
+
+        // When
+        when(authService.deleteAll(List.of(deletedId, missingId))).thenReturn(Set.of(deletedId));
+
+        authGrpcService.deleteUsers(request, deleteUsersObserver);
+
+        // Then
+        verify(deleteUsersObserver, times(1)).onNext(
+                Auth.DeleteUsersResponse.newBuilder()
+                        .addResults(Auth.DeleteUserResult.newBuilder().setUserId(deletedId.toString()).setSuccess(true))
+                        .addResults(Auth.DeleteUserResult.newBuilder().setUserId("invalid-user-id"))
+                        .addResults(Auth.DeleteUserResult.newBuilder().setUserId(missingId.toString()))
+                        .build()
+        );
+        verify(deleteUsersObserver, times(1)).onCompleted();
+    }
+
+    @Test
+    @DisplayName("Should delete streamed IDs in chunks and answer on completion")
+    void givenStreamedUserIds_whenCompleted_thenDeletesInChunks() {
+        // Given
+        var ids = Stream.generate(UUID::randomUUID).limit(UserDeletionStream.CHUNK_SIZE + 1).toList();
+
+        // When
+        when(authService.deleteAll(any())).thenAnswer(invocation -> Set.copyOf(invocation.<List<UUID>>getArgument(0)));
+
+        var requests = authGrpcService.deleteUsersStream(deleteUsersObserver);
+        ids.forEach(id -> requests.onNext(Auth.DeleteUserRequest.newBuilder().setUserId(id.toString()).build()));
+
+        // Then
+        verify(authService, times(1)).deleteAll(any());
+        verify(deleteUsersObserver, never()).onNext(any());
+
+        // When
+        requests.onCompleted();
+
+        // Then
+        verify(authService, times(2)).deleteAll(any());
+        verify(deleteUsersObserver, times(1)).onNext(argThat(response ->
+                response.getResultsCount() == ids.size()
+                        && response.getResultsList().stream().allMatch(Auth.DeleteUserResult::getSuccess)));
+        verify(deleteUsersObserver, times(1)).onCompleted();
+    }
 }
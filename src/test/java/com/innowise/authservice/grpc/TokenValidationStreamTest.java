@@ -0,0 +1,143 @@
+package com.innowise.authservice.grpc;
+
+import com.innowise.authservice.generated.Auth;
+import com.innowise.authservice.security.TokenVerification;
+import com.innowise.authservice.service.AuthService;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenValidationStreamTest {
+    @Mock
+    private ServerCallStreamObserver<Auth.StreamTokenValidation> responses;
+
+    @Mock
+    private AuthService authService;
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private TokenValidationStream stream;
+
+    @BeforeEach
+    void setUp() {
+        stream = new TokenValidationStream(responses, authService, tasks::add, 8);
+    }
+
+    @Test
+    @DisplayName("Should take over inbound flow control with the configured window")
+    void givenNewStream_whenCreated_thenRequestsWindow() {
+        // Then
+        verify(responses, times(1)).disableAutoRequest();
+        verify(responses, times(1)).request(8);
+    }
+
+    @Test
+    @DisplayName("Should answer in completion order tagged with the correlation ID")
+    void givenPipelinedRequests_whenVerifiedOutOfOrder_thenRespondsByCorrelationId() {
+        // Given
+        when(authService.verify("FIRST"))
+                .thenReturn(TokenVerification.failed(TokenVerification.FailureReason.EXPIRED));
+        when(authService.verify("SECOND"))
+                .thenReturn(TokenVerification.failed(TokenVerification.FailureReason.MALFORMED));
+        when(responses.isReady()).thenReturn(true);
+
+        // When
+        stream.onNext(request(1, "FIRST"));
+        stream.onNext(request(2, "SECOND"));
+        tasks.get(1).run();
+        tasks.get(0).run();
+
+        // Then
+        var captor = ArgumentCaptor.forClass(Auth.StreamTokenValidation.class);
+        verify(responses, times(2)).onNext(captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).getCorrelationId());
+        assertEquals("MALFORMED", captor.getAllValues().get(0).getValidation().getFailureReason());
+        assertEquals(1, captor.getAllValues().get(1).getCorrelationId());
+        assertEquals("EXPIRED", captor.getAllValues().get(1).getValidation().getFailureReason());
+        verify(responses, times(2)).request(1);
+    }
+
+    @Test
+    @DisplayName("Should hold back new requests until the client reads responses again")
+    void givenOutboundNotReady_whenResponded_thenDefersRequestUntilReady() {
+        // Given
+        var onReady = ArgumentCaptor.forClass(Runnable.class);
+        verify(responses).setOnReadyHandler(onReady.capture());
+        when(authService.verify(any()))
+                .thenReturn(TokenVerification.failed(TokenVerification.FailureReason.MALFORMED));
+        when(responses.isReady()).thenReturn(false);
+
+        // When
+        stream.onNext(request(1, "TOKEN"));
+        stream.onNext(request(2, "TOKEN"));
+        tasks.forEach(Runnable::run);
+
+        // Then
+        verify(responses, never()).request(1);
+
+        // When
+        onReady.getValue().run();
+
+        // Then
+        verify(responses, times(1)).request(2);
+    }
+
+    @Test
+    @DisplayName("Should complete only after all in-flight validations were answered")
+    void givenHalfClosedStream_whenLastResponseSent_thenCompletes() {
+        // Given
+        when(authService.verify("TOKEN"))
+                .thenReturn(TokenVerification.failed(TokenVerification.FailureReason.MALFORMED));
+        when(responses.isReady()).thenReturn(true);
+
+        // When
+        stream.onNext(request(1, "TOKEN"));
+        stream.onCompleted();
+
+        // Then
+        verify(responses, never()).onCompleted();
+
+        // When
+        tasks.get(0).run();
+
+        // Then
+        verify(responses, times(1)).onCompleted();
+    }
+
+    @Test
+    @DisplayName("Should fail the stream when the validation pool rejects work")
+    void givenSaturatedPool_whenOnNext_thenReturnsStatusResourceExhausted() {
+        // Given
+        var rejecting = new TokenValidationStream(responses, authService, task -> {
+            throw new RejectedExecutionException();
+        }, 8);
+
+        // When
+        rejecting.onNext(request(1, "TOKEN"));
+
+        // Then
+        verify(responses, times(1)).onError(argThat(error ->
+                Status.fromThrowable(error).getCode() == Status.Code.RESOURCE_EXHAUSTED));
+    }
+
+    private static Auth.StreamValidateTokenRequest request(long correlationId, String token) {
+        return Auth.StreamValidateTokenRequest.newBuilder()
+                .setCorrelationId(correlationId)
+                .setToken(token)
+                .build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.innowise.authservice.lifecycle;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenPartitionHealthIndicatorTest {
+    @Mock
+    private RefreshTokenPartitionMaintainer maintainer;
+
+    @InjectMocks
+    private RefreshTokenPartitionHealthIndicator healthIndicator;
+
+    @Test
+    @DisplayName("Should be up when partitions exist for every day a token issued now can expire on")
+    void givenPartitionsThroughTtl_whenHealth_thenUp() {
+        // Given
+        when(maintainer.daysAhead()).thenReturn(7L);
+        when(maintainer.ttlDays()).thenReturn(7L);
+
+        // When
+        var health = healthIndicator.health();
+
+        // Then
+        assertEquals(Status.UP, health.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should be down when a token issued now could expire on a day without a partition")
+    void givenPartitionMissingWithinTtl_whenHealth_thenDown() {
+        // Given
+        when(maintainer.daysAhead()).thenReturn(6L);
+        when(maintainer.ttlDays()).thenReturn(7L);
+
+        // When
+        var health = healthIndicator.health();
+
+        // Then
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(6L, health.getDetails().get("daysAhead"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.innowise.authservice.lifecycle;
+
+import com.innowise.authservice.repository.RefreshTokenPartitionRepository;
+import com.innowise.authservice.repository.RefreshTokenRepository;
+import com.innowise.authservice.security.JwtProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenPartitionMaintainerTest {
+    @Mock
+    private RefreshTokenPartitionRepository partitionRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RefreshTokenPartitionMaintainer maintainer;
+
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new JwtProperties();
+        properties.setRefreshTokenTtl(Duration.ofDays(7).toSeconds());
+        properties.getRefreshTokenMaintenance().setDaysAhead(2);
+        properties.getRefreshTokenMaintenance().setBatchSize(100);
+        properties.getRefreshTokenMaintenance().setPause(Duration.ZERO);
+        meterRegistry = new SimpleMeterRegistry();
+        maintainer = new RefreshTokenPartitionMaintainer(
+                properties, partitionRepository, refreshTokenRepository, meterRegistry);
+        today = LocalDate.now(ZoneOffset.UTC);
+    }
+
+    @Test
+    @DisplayName("Should create missing partitions up to TTL plus days ahead")
+    void givenMissingPartitions_whenMaintainPartitions_thenCreatesThem() {
+        // Given
+        when(partitionRepository.findPartitionDays()).thenReturn(List.of(today, today.plusDays(1)));
+        when(partitionRepository.createPartition(any())).thenReturn(true);
+
+        // When
+        maintainer.maintainPartitions();
+
+        // Then
+        verify(partitionRepository, never()).createPartition(today);
+        verify(partitionRepository, never()).createPartition(today.plusDays(1));
+        verify(partitionRepository).createPartition(today.plusDays(9));
+        verify(partitionRepository, never()).createPartition(today.plusDays(10));
+        assertEquals(8, meterRegistry.get("auth.refresh.tokens.partitions.created").counter().count());
+        assertEquals(9, meterRegistry.get("auth.refresh.tokens.partitions.days.ahead").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should report no partitions ahead before the first maintenance run")
+    void givenNoMaintenanceRun_whenDaysAhead_thenMinusOne() {
+        // When
+        var daysAhead = maintainer.daysAhead();
+
+        // Then
+        assertEquals(-1, daysAhead);
+        assertEquals(-1, meterRegistry.get("auth.refresh.tokens.partitions.days.ahead").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should report partitions ahead only up to the first day that could not be created")
+    void givenCreateFailureAhead_whenMaintainPartitions_thenDaysAheadStopsBeforeGap() {
+        // Given
+        when(partitionRepository.findPartitionDays()).thenReturn(List.of());
+        when(partitionRepository.createPartition(any())).thenReturn(true);
+        when(partitionRepository.createPartition(today.plusDays(3)))
+                .thenThrow(new DataAccessResourceFailureException("lock timeout"));
+
+        // When
+        maintainer.maintainPartitions();
+
+        // Then
+        assertEquals(2, maintainer.daysAhead());
+    }
+
+    @Test
+    @DisplayName("Should drop only partitions that ended before the retention cutoff")
+    void givenExpiredPartitions_whenMaintainPartitions_thenDropsThem() {
+        // Given
+        var expired = today.minusDays(9);
+        var retained = today.minusDays(7);
+        when(partitionRepository.findPartitionDays()).thenReturn(List.of(expired, retained));
+        when(partitionRepository.dropPartition(expired)).thenReturn(true);
+
+        // When
+        maintainer.maintainPartitions();
+
+        // Then
+        verify(partitionRepository).dropPartition(expired);
+        verify(partitionRepository, never()).dropPartition(retained);
+        assertEquals(1, meterRegistry.get("auth.refresh.tokens.partitions.dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep maintaining when a partition cannot be created")
+    void givenCreateFailure_whenMaintainPartitions_thenContinues() {
+        // Given
+        when(partitionRepository.findPartitionDays()).thenReturn(List.of());
+        when(partitionRepository.createPartition(any())).thenReturn(true);
+        when(partitionRepository.createPartition(today))
+                .thenThrow(new DataAccessResourceFailureException("lock timeout"));
+
+        // When
+        maintainer.maintainPartitions();
+
+        // Then
+        verify(partitionRepository).createPartition(today.plusDays(9));
+        assertEquals(9, meterRegistry.get("auth.refresh.tokens.partitions.created").counter().count());
+        assertEquals(-1, maintainer.daysAhead());
+    }
+
+    @Test
+    @DisplayName("Should purge leftover expired tokens in batches until a batch is not full")
+    void givenLeftoverExpiredTokens_whenMaintainPartitions_thenPurgesInBatches() {
+        // Given
+        when(partitionRepository.findPartitionDays()).thenReturn(List.of());
+        when(refreshTokenRepository.deleteExpiredBatch(any(), eq(100))).thenReturn(100, 100, 7);
+
+        // When
+        maintainer.maintainPartitions();
+
+        // Then
+        verify(refreshTokenRepository, times(3)).deleteExpiredBatch(any(), eq(100));
+        assertEquals(207, meterRegistry.get("auth.refresh.tokens.purged").counter().count());
+        assertEquals(1, meterRegistry.get("auth.refresh.tokens.purge").timer().count());
+    }
+}
@@ -0,0 +1,90 @@
+package com.innowise.authservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.innowise.authservice.dto.AuthResponse;
+import com.innowise.authservice.dto.LoginRequest;
+import com.innowise.authservice.dto.RefreshTokenRequest;
+import com.innowise.authservice.dto.SaveCredentialsRequest;
+import com.innowise.authservice.dto.ValidateTokenRequest;
+import com.innowise.authservice.generated.Auth;
+import com.innowise.authservice.generated.AuthServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls the service the way its clients do: the REST API over HTTP/1.1 and token validation over gRPC.
+ * Every method returns whether the call succeeded instead of throwing on error responses.
+ */
+class AuthClient implements AutoCloseable {
+    private static final String BASE_PATH = "/api/v1/auth";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String baseUrl;
+    private final ManagedChannel channel;
+    private final AuthServiceGrpc.AuthServiceBlockingStub stub;
+
+    AuthClient(int httpPort, int grpcPort) {
+        this.baseUrl = "http://localhost:" + httpPort + BASE_PATH;
+        this.channel = ManagedChannelBuilder.forAddress("localhost", grpcPort)
+                .usePlaintext()
+                .build();
+        this.stub = AuthServiceGrpc.newBlockingStub(channel);
+    }
+
+    boolean signup(String email, String password) throws IOException, InterruptedException {
+        return post("/credentials", new SaveCredentialsRequest(email, password)).statusCode() == 201;
+    }
+
+    Optional<AuthResponse> login(String email, String password) throws IOException, InterruptedException {
+        return authResponse(post("/login", new LoginRequest(email, password)));
+    }
+
+    Optional<AuthResponse> refresh(String refreshToken) throws IOException, InterruptedException {
+        return authResponse(post("/refresh", new RefreshTokenRequest(refreshToken)));
+    }
+
+    boolean validateOverHttp(String token) throws IOException, InterruptedException {
+        var response = post("/validate", new ValidateTokenRequest(token));
+        return response.statusCode() == 200 && data(response).asBoolean();
+    }
+
+    boolean validateOverGrpc(String token) {
+        return stub.validateToken(Auth.ValidateTokenRequest.newBuilder().setToken(token).build()).getValid();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        channel.shutdown().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private HttpResponse<String> post(String path, Object body) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private Optional<AuthResponse> authResponse(HttpResponse<String> response) throws IOException {
+        if (response.statusCode() != 200) {
+            return Optional.empty();
+        }
+        return Optional.of(objectMapper.treeToValue(data(response), AuthResponse.class));
+    }
+
+    private JsonNode data(HttpResponse<String> response) throws IOException {
+        return objectMapper.readTree(response.body()).path("data");
+    }
+}
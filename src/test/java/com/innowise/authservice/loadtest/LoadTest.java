@@ -0,0 +1,346 @@
+package com.innowise.authservice.loadtest;
+
+import com.innowise.authservice.InternshipAuthServiceApplication;
+import com.innowise.authservice.dto.AuthResponse;
+import com.innowise.authservice.security.KnownEmails;
+import com.innowise.authservice.support.JwtFixture;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load test. Boots the service against Postgres in Testcontainers, seeds users and drives a weighted
+ * mix of signup, login, refresh and validation calls over HTTP and gRPC from a fixed number of workers, then prints
+ * throughput and latency percentiles per operation together with Hikari pool saturation. Requires Docker.
+ * <p>
+ * Without {@code loadtest.rate} every worker sends its next call as soon as the previous one returned. With a rate
+ * in calls per second, calls are paced and latency is measured from their intended start, so a stalled service is
+ * not hidden by workers that slow down with it. Program arguments are passed to the application, so configurations
+ * can be compared, e.g. {@code -Dloadtest.app-args=--spring.threads.virtual.enabled=true}.
+ * Run with {@code mvn -Pload-test verify -DskipTests}.
+ */
+public class LoadTest {
+    private static final String PASSWORD = "Password1";
+    private static final long POOL_SAMPLE_INTERVAL_MILLIS = 50;
+
+    public static void main(String[] args) throws Exception {
+        // DevTools would restart the application in another class loader and run this method again
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        var settings = Settings.fromSystemProperties();
+        try (var postgres = new PostgreSQLContainer<>("postgres:15")) {
+            postgres.start();
+            int httpPort = freePort();
+            int grpcPort = freePort();
+
+            var appArgs = new ArrayList<>(List.of(
+                    "--server.port=" + httpPort,
+                    "--grpc.server.port=" + grpcPort,
+                    "--management.server.port=" + freePort(),
+                    "--spring.docker.compose.enabled=false",
+                    "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                    "--spring.datasource.username=" + postgres.getUsername(),
+                    "--spring.datasource.password=" + postgres.getPassword(),
+                    "--spring.security.jwt.secret=" + JwtFixture.SECRET,
+                    "--eureka.client.enabled=false",
+                    // all workers share one address and log in to the same seeded accounts
+                    "--spring.security.throttling.enabled=false",
+                    "--logging.level.root=warn"));
+            appArgs.addAll(List.of(args));
+
+            try (var context = new SpringApplicationBuilder(InternshipAuthServiceApplication.class)
+                    .run(appArgs.toArray(String[]::new));
+                 var client = new AuthClient(httpPort, grpcPort)) {
+                seedUsers(context, settings.users());
+                // Seeded behind the service's back, add them to the known emails before the first login
+                context.getBean(KnownEmails.class).sync();
+                var pool = context.getBean(DataSource.class).unwrap(HikariDataSource.class);
+                new LoadTest(settings, client, pool).run().print(settings, pool.getMaximumPoolSize());
+            }
+        }
+    }
+
+    private final Settings settings;
+    private final AuthClient client;
+    private final HikariPoolMXBean pool;
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong signups = new AtomicLong();
+
+    private LoadTest(Settings settings, AuthClient client, HikariDataSource dataSource) {
+        this.settings = settings;
+        this.client = client;
+        this.pool = dataSource.getHikariPoolMXBean();
+        for (var operation : Operation.values()) {
+            latencies.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    private Result run() throws InterruptedException {
+        var mix = Mix.parse(settings.mix());
+        long warmupNanos = TimeUnit.SECONDS.toNanos(settings.warmupSeconds());
+        long durationNanos = TimeUnit.SECONDS.toNanos(settings.durationSeconds());
+        long stopAt = System.nanoTime() + warmupNanos + durationNanos;
+
+        var workers = Executors.newFixedThreadPool(settings.concurrency());
+        for (int i = 0; i < settings.concurrency(); i++) {
+            workers.execute(new Worker(mix, stopAt));
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        latencies.values().forEach(Recorder::reset);
+        errors.values().forEach(LongAdder::reset);
+        var poolSamples = new PoolSamples();
+        var sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> poolSamples.record(pool),
+                0, POOL_SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        long measuredFrom = System.nanoTime();
+
+        workers.shutdown();
+        workers.awaitTermination(durationNanos + TimeUnit.MINUTES.toNanos(1), TimeUnit.NANOSECONDS);
+        long measuredNanos = System.nanoTime() - measuredFrom;
+        sampler.shutdownNow();
+
+        var histograms = new EnumMap<Operation, Histogram>(Operation.class);
+        var errorCounts = new EnumMap<Operation, Long>(Operation.class);
+        for (var operation : Operation.values()) {
+            histograms.put(operation, latencies.get(operation).getIntervalHistogram());
+            errorCounts.put(operation, errors.get(operation).sum());
+        }
+        return new Result(histograms, errorCounts, measuredNanos, poolSamples);
+    }
+
+    private static void seedUsers(ConfigurableApplicationContext context, int users) {
+        // Every seeded user shares one hash, so seeding does not pay for BCrypt once per user
+        var passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        context.getBean(JdbcTemplate.class).update("""
+                INSERT INTO users (id, user_id, email, password)
+                SELECT gen_random_uuid(), gen_random_uuid(), 'user' || g || '@load.test', ?
+                FROM generate_series(1, ?) g
+                """, passwordHash, users);
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private enum Operation {
+        SIGNUP("signup"),
+        LOGIN("login"),
+        REFRESH("refresh"),
+        VALIDATE_HTTP("validate-http"),
+        VALIDATE_GRPC("validate-grpc");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            return Arrays.stream(values())
+                    .filter(operation -> operation.key.equals(key))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + key));
+        }
+    }
+
+    /**
+     * Weighted operation mix, parsed from {@code operation:weight} pairs separated by commas.
+     */
+    private record Mix(Operation[] operations, int[] cumulativeWeights) {
+        static Mix parse(String mix) {
+            var entries = mix.split(",");
+            var operations = new Operation[entries.length];
+            var cumulativeWeights = new int[entries.length];
+            int total = 0;
+            for (int i = 0; i < entries.length; i++) {
+                var parts = entries[i].trim().split(":");
+                operations[i] = Operation.of(parts[0]);
+                total += Integer.parseInt(parts[1]);
+                cumulativeWeights[i] = total;
+            }
+            return new Mix(operations, cumulativeWeights);
+        }
+
+        Operation next(Random random) {
+            int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int i = 0;
+            while (value >= cumulativeWeights[i]) {
+                i++;
+            }
+            return operations[i];
+        }
+    }
+
+    /**
+     * A client session: logs in as a random seeded user and keeps its tokens for refresh and validation calls.
+     */
+    private final class Worker implements Runnable {
+        private final Mix mix;
+        private final long stopAt;
+        private String accessToken;
+        private String refreshToken;
+
+        private Worker(Mix mix, long stopAt) {
+            this.mix = mix;
+            this.stopAt = stopAt;
+        }
+
+        @Override
+        public void run() {
+            var random = ThreadLocalRandom.current();
+            long interval = settings.rate() > 0
+                    ? TimeUnit.SECONDS.toNanos(settings.concurrency()) / settings.rate()
+                    : 0;
+            // Spread the paced workers over one interval instead of starting them all at once
+            long intendedStart = System.nanoTime() + (interval > 0 ? random.nextLong(interval) : 0);
+            while (System.nanoTime() < stopAt) {
+                if (interval > 0) {
+                    LockSupport.parkNanos(intendedStart - System.nanoTime());
+                } else {
+                    intendedStart = System.nanoTime();
+                }
+                var operation = accessToken == null ? Operation.LOGIN : mix.next(random);
+                boolean succeeded;
+                try {
+                    succeeded = execute(operation, random);
+                } catch (Exception e) {
+                    succeeded = false;
+                }
+                latencies.get(operation).recordValue(System.nanoTime() - intendedStart);
+                if (!succeeded) {
+                    errors.get(operation).increment();
+                }
+                intendedStart += interval;
+            }
+        }
+
+        private boolean execute(Operation operation, Random random) throws IOException, InterruptedException {
+            return switch (operation) {
+                case SIGNUP -> client.signup("signup" + signups.incrementAndGet() + "@load.test", PASSWORD);
+                case LOGIN -> {
+                    var email = "user" + (random.nextInt(settings.users()) + 1) + "@load.test";
+                    var response = client.login(email, PASSWORD);
+                    response.ifPresent(tokens -> {
+                        accessToken = tokens.accessToken();
+                        refreshToken = tokens.refreshToken();
+                    });
+                    yield response.isPresent();
+                }
+                case REFRESH -> {
+                    var response = client.refresh(refreshToken);
+                    accessToken = response.map(AuthResponse::accessToken).orElse(null);
+                    refreshToken = response.map(AuthResponse::refreshToken).orElse(null);
+                    yield response.isPresent();
+                }
+                case VALIDATE_HTTP -> client.validateOverHttp(accessToken);
+                case VALIDATE_GRPC -> client.validateOverGrpc(accessToken);
+            };
+        }
+    }
+
+    /**
+     * Hikari pool state sampled while measuring. Threads awaiting a connection mean the pool is the bottleneck.
+     */
+    private static final class PoolSamples {
+        private long samples;
+        private long activeSum;
+        private int maxActive;
+        private int maxAwaiting;
+        private long saturatedSamples;
+
+        synchronized void record(HikariPoolMXBean pool) {
+            int active = pool.getActiveConnections();
+            int awaiting = pool.getThreadsAwaitingConnection();
+            samples++;
+            activeSum += active;
+            maxActive = Math.max(maxActive, active);
+            maxAwaiting = Math.max(maxAwaiting, awaiting);
+            if (awaiting > 0) {
+                saturatedSamples++;
+            }
+        }
+    }
+
+    private record Result(Map<Operation, Histogram> latencies, Map<Operation, Long> errors,
+                          long measuredNanos, PoolSamples pool) {
+        void print(Settings settings, int maximumPoolSize) {
+            double seconds = measuredNanos / 1e9;
+            System.out.printf("%nLoad test: %d workers, %s, %d seeded users, %.1f s measured after %d s warmup%n",
+                    settings.concurrency(),
+                    settings.rate() > 0 ? settings.rate() + " calls/s" : "closed loop",
+                    settings.users(), seconds, settings.warmupSeconds());
+            System.out.printf("%-14s %9s %7s %10s %9s %9s %9s %9s%n",
+                    "operation", "calls", "errors", "calls/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+            long total = 0;
+            for (var entry : latencies.entrySet()) {
+                var histogram = entry.getValue();
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                total += histogram.getTotalCount();
+                System.out.printf("%-14s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                        entry.getKey().key,
+                        histogram.getTotalCount(),
+                        errors.get(entry.getKey()),
+                        histogram.getTotalCount() / seconds,
+                        millis(histogram.getValueAtPercentile(50)),
+                        millis(histogram.getValueAtPercentile(99)),
+                        millis(histogram.getValueAtPercentile(99.9)),
+                        millis(histogram.getMaxValue()));
+            }
+            System.out.printf("%-14s %9d %7s %10.1f%n", "total", total, "", total / seconds);
+            synchronized (pool) {
+                System.out.printf("Hikari pool of %d: %.1f active on average, %d at most; "
+                                + "up to %d threads waiting, pool exhausted in %.1f%% of samples%n",
+                        maximumPoolSize,
+                        pool.samples > 0 ? (double) pool.activeSum / pool.samples : 0,
+                        pool.maxActive,
+                        pool.maxAwaiting,
+                        pool.samples > 0 ? 100.0 * pool.saturatedSamples / pool.samples : 0);
+            }
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    private record Settings(int users, int concurrency, int warmupSeconds, int durationSeconds, int rate, String mix) {
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("loadtest.users", 1000),
+                    Integer.getInteger("loadtest.concurrency", 32),
+                    Integer.getInteger("loadtest.warmup", 15),
+                    Integer.getInteger("loadtest.duration", 60),
+                    Integer.getInteger("loadtest.rate", 0),
+                    System.getProperty("loadtest.mix",
+                            "signup:2,login:8,refresh:10,validate-http:40,validate-grpc:40"));
+        }
+    }
+}
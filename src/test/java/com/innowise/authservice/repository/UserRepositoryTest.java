@@ -0,0 +1,119 @@
+package com.innowise.authservice.repository;
+
+import com.innowise.authservice.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    @DynamicPropertySource
+    static void configure(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.jpa.properties.hibernate.session_factory.statement_inspector",
+                RecordingStatementInspector.class::getName);
+    }
+
+    @Test
+    @DisplayName("Should look up users by email through the unique email index")
+    void givenEmailLookup_whenExplained_thenUsesUniqueIndex() {
+        // Given
+        entityManager.createNativeQuery("SET LOCAL enable_seqscan = off").executeUpdate();
+        RecordingStatementInspector.STATEMENTS.clear();
+        userRepository.findByEmail("test@email.com");
+        assertEquals(1, RecordingStatementInspector.STATEMENTS.size(), RecordingStatementInspector.STATEMENTS::toString);
+
+        // When
+        var plan = explain(RecordingStatementInspector.STATEMENTS.get(0), "test@email.com");
+
+        // Then
+        assertTrue(plan.contains("users_email_key"), plan);
+        assertFalse(plan.contains("Seq Scan"), plan);
+    }
+
+    @Test
+    @DisplayName("Should insert a user once and skip inserts with a taken email")
+    void givenTakenEmail_whenInsertIfEmailAbsent_thenReturnsEmpty() {
+        // Given
+        var inserted = insert("test@email.com");
+
+        // When
+        var duplicate = insert("test@email.com");
+
+        // Then
+        assertTrue(inserted.isPresent());
+        assertNotNull(inserted.get().getCreatedAt());
+        assertTrue(duplicate.isEmpty());
+        assertEquals(inserted.get().getUserId(), userRepository.findByEmail("test@email.com").orElseThrow().getUserId());
+    }
+
+    @Test
+    @DisplayName("Should reject emails that are not normalized")
+    void givenMixedCaseEmail_whenInsertIfEmailAbsent_thenThrowsException() {
+        // When, Then
+        assertThrows(DataIntegrityViolationException.class, () -> insert("Test@Email.com"));
+    }
+
+    private Optional<User> insert(String email) {
+        return userRepository.insertIfEmailAbsent(UUID.randomUUID(), UUID.randomUUID(), email, "HASHED_PASSWORD",
+                "ROLE_USER");
+    }
+
+    /**
+     * Explains the statement as the application runs it, with its JDBC parameter bound as a prepared statement.
+     */
+    @SuppressWarnings("unchecked")
+    private String explain(String statement, String parameter) {
+        entityManager.createNativeQuery("PREPARE explained(varchar) AS " + statement.replace("?", "$1")).executeUpdate();
+        // EXPLAIN takes no bind parameters, so the value is passed as a literal
+        List<String> plan = entityManager
+                .createNativeQuery("EXPLAIN EXECUTE explained('" + parameter.replace("'", "''") + "')")
+                .getResultList();
+        entityManager.createNativeQuery("DEALLOCATE explained").executeUpdate();
+        return String.join("\n", plan);
+    }
+
+    /**
+     * Records the SQL Hibernate sends, so tests can check the plans of generated queries.
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
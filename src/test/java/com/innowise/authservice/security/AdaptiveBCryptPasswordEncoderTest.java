@@ -0,0 +1,65 @@
+package com.innowise.authservice.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBCryptPasswordEncoderTest {
+    private final AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5, false);
+    private final AdaptiveBCryptPasswordEncoder upgradeOnlyEncoder = new AdaptiveBCryptPasswordEncoder(5, true);
+
+    @Test
+    @DisplayName("Should not request re-encoding of hash with configured cost")
+    void givenHashWithSameCost_whenUpgradeEncoding_thenReturnsFalse() {
+        assertFalse(encoder.upgradeEncoding(encoder.encode("Password1")));
+    }
+
+    @Test
+    @DisplayName("Should request re-encoding of hash with lower cost")
+    void givenHashWithLowerCost_whenUpgradeEncoding_thenReturnsTrue() {
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("Password1")));
+    }
+
+    @Test
+    @DisplayName("Should request re-encoding of hash with higher cost when the cost is fixed")
+    void givenHashWithHigherCost_whenUpgradeEncoding_thenReturnsTrue() {
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("Password1")));
+    }
+
+    @Test
+    @DisplayName("Should request re-encoding of hash with lower cost when only upgrading")
+    void givenHashWithLowerCostAndUpgradeOnly_whenUpgradeEncoding_thenReturnsTrue() {
+        assertTrue(upgradeOnlyEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("Password1")));
+    }
+
+    @Test
+    @DisplayName("Should keep hash with higher cost when only upgrading")
+    void givenHashWithHigherCostAndUpgradeOnly_whenUpgradeEncoding_thenReturnsFalse() {
+        assertFalse(upgradeOnlyEncoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("Password1")));
+    }
+
+    @Test
+    @DisplayName("Should match hashes made with any cost")
+    void givenHashWithOtherCost_whenMatches_thenReturnsTrue() {
+        assertTrue(encoder.matches("Password1", new BCryptPasswordEncoder(4).encode("Password1")));
+    }
+
+    @Test
+    @DisplayName("Should not request re-encoding of non-BCrypt value")
+    void givenNotBCryptHash_whenUpgradeEncoding_thenReturnsFalse() {
+        assertFalse(encoder.upgradeEncoding("plain"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    @DisplayName("Should pick the highest cost that fits the latency budget")
+    void givenMeasuredLatency_whenStrengthFor_thenExtrapolatesCost() {
+        assertEquals(10, BCryptStrengthCalibrator.strengthFor(100, 80, 10, 14));
+        assertEquals(11, BCryptStrengthCalibrator.strengthFor(160, 80, 10, 14));
+        assertEquals(12, BCryptStrengthCalibrator.strengthFor(400, 80, 10, 14));
+        assertEquals(14, BCryptStrengthCalibrator.strengthFor(100_000, 80, 10, 14));
+        assertEquals(10, BCryptStrengthCalibrator.strengthFor(10, 80, 10, 14));
+    }
+}
@@ -0,0 +1,109 @@
+package com.innowise.authservice.security;
+
+import com.innowise.authservice.exception.PasswordHashingUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedPasswordEncoderTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        encoder.destroy();
+    }
+
+    @Test
+    @DisplayName("Should delegate hashing and record its duration")
+    void givenPassword_whenEncodeAndMatch_thenDelegates() {
+        encoder = new BoundedPasswordEncoder(new ReversingEncoder(null), properties(1, 1), meterRegistry);
+
+        var encoded = encoder.encode("Password1");
+
+        assertEquals("1drowssaP", encoded);
+        assertTrue(encoder.matches("Password1", encoded));
+        assertEquals(1, meterRegistry.get("auth.password.hashing")
+                .tags("operation", "encode", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("auth.password.hashing")
+                .tags("operation", "matches", "outcome", "match").timer().count());
+        assertEquals(0, meterRegistry.get("auth.password.hashing")
+                .tags("operation", "matches", "outcome", "mismatch").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should reject hashing when workers and queue are full")
+    void givenSaturatedPool_whenEncode_thenThrowsException() throws Exception {
+        var started = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new ReversingEncoder(started), properties(1, 1), meterRegistry);
+
+        var running = CompletableFuture.runAsync(() -> encoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        var queued = CompletableFuture.runAsync(() -> encoder.encode("second"));
+        await(() -> meterRegistry.get("executor.queued").tag("name", "passwordHashing").gauge().value() == 1);
+
+        assertThrows(PasswordHashingUnavailableException.class, () -> encoder.encode("third"));
+        assertEquals(1, meterRegistry.get("auth.password.hashing.rejected").counter().count());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        queued.get(5, TimeUnit.SECONDS);
+    }
+
+    private static PasswordProperties properties(int poolSize, int queueCapacity) {
+        var properties = new PasswordProperties();
+        properties.setPoolSize(poolSize);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setWaitTimeout(Duration.ofSeconds(5));
+        return properties;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Fake encoder that reverses the password and, when given a latch, blocks until the test releases it.
+     */
+    private class ReversingEncoder implements PasswordEncoder {
+        private final CountDownLatch started;
+
+        ReversingEncoder(CountDownLatch started) {
+            this.started = started;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            if (started != null) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new StringBuilder(rawPassword).reverse().toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return new StringBuilder(rawPassword).reverse().toString().equals(encodedPassword);
+        }
+    }
+}
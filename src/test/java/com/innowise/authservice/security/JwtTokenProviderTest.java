@@ -3,12 +3,18 @@ package com.innowise.authservice.security;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -17,6 +23,7 @@ import static org.junit.jupiter.api.Assertions.*;
 class JwtTokenProviderTest {
 
     private JwtProperties properties;
+    private SimpleMeterRegistry meterRegistry;
     private JwtTokenProvider jwtTokenProvider;
 
     @BeforeEach
@@ -25,7 +32,8 @@ class JwtTokenProviderTest {
         properties.setSecret("34c0ef79a25ea6979814b3341c3529484fd8168b831f58fac94e8f04a8bc7ee8");
         properties.setAccessTokenTtl(60L);
         properties.setRefreshTokenTtl(120L);
-        jwtTokenProvider = new JwtTokenProvider(properties);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtTokenProvider = new JwtTokenProvider(properties, meterRegistry);
     }
 
     @Test
@@ -54,10 +62,239 @@ class JwtTokenProviderTest {
         assertFalse(jwtTokenProvider.validateToken(token));
     }
 
+    @Test
+    @DisplayName("Should verify access token claims in one pass")
+    void givenAccessToken_whenVerify_thenReturnsClaims() {
+        UUID id = UUID.randomUUID();
+        String token = jwtTokenProvider.generateAccessToken(id, Map.of("role", "ROLE_ADMIN"));
+
+        TokenVerification verification = jwtTokenProvider.verify(token);
+
+        assertTrue(verification.isAccessToken());
+        assertEquals(id.toString(), verification.subject());
+        assertEquals("ROLE_ADMIN", verification.role());
+        assertNull(verification.failureReason());
+        assertNotNull(verification.tokenId());
+        assertNotNull(verification.issuedAt());
+    }
+
+    @Test
+    @DisplayName("Should issue refresh token with expiration equal to its claim")
+    void givenRandomUUID_whenGenerateRefreshToken_thenReturnsExpiration() {
+        IssuedToken refreshToken = jwtTokenProvider.generateRefreshToken(UUID.randomUUID());
+
+        TokenVerification verification = jwtTokenProvider.verify(refreshToken.value());
+
+        assertTrue(verification.isRefreshToken());
+        assertEquals(refreshToken.expiresAt(), verification.expiresAt());
+    }
+
+    @Test
+    @DisplayName("Should report failure reason for token signed with another key")
+    void givenForeignSignature_whenVerify_thenReturnsInvalidSignature() {
+        String token = Jwts.builder()
+                .subject(UUID.randomUUID().toString())
+                .expiration(Date.from(Instant.now().plusSeconds(10)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(
+                        "3552afa25b4ebf0860695d78172f7fa79a0b2fc58bba7b41bfbcf8b63630d06c")))
+                .compact();
+
+        TokenVerification verification = jwtTokenProvider.verify(token);
+
+        assertFalse(verification.valid());
+        assertEquals(TokenVerification.FailureReason.INVALID_SIGNATURE, verification.failureReason());
+    }
+
+    @Test
+    @DisplayName("Should time signing by token type and verification by outcome")
+    void givenIssuedTokens_whenVerify_thenRecordsTimers() {
+        String accessToken = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+        jwtTokenProvider.generateRefreshToken(UUID.randomUUID());
+
+        jwtTokenProvider.verify(accessToken);
+        jwtTokenProvider.verify("fake-token");
+
+        assertEquals(1, meterRegistry.get("auth.token.sign").tag("type", "access").timer().count());
+        assertEquals(1, meterRegistry.get("auth.token.sign").tag("type", "refresh").timer().count());
+        assertEquals(1, meterRegistry.get("auth.token.verify").tag("outcome", "valid").timer().count());
+        assertEquals(1, meterRegistry.get("auth.token.verify").tag("outcome", "malformed").timer().count());
+    }
+
     @Test
     @DisplayName("Should return false for malformed token")
     void givenMalformedToken_whenValidateToken_thenReturnFalse() {
         assertFalse(jwtTokenProvider.validateToken("fake-token"));
     }
-}
 
+    @Test
+    @DisplayName("Should sign and verify with the new key after secret reload")
+    void givenChangedSecret_whenReload_thenUsesNewKey() {
+        UUID id = UUID.randomUUID();
+        String oldToken = jwtTokenProvider.generateAccessToken(id, Map.of("role", "ROLE_USER"));
+
+        var withdrawn = jwtTokenProvider.reload("3552afa25b4ebf0860695d78172f7fa79a0b2fc58bba7b41bfbcf8b63630d06c",
+                new JwtProperties.Signing());
+        String newToken = jwtTokenProvider.generateAccessToken(id, Map.of("role", "ROLE_USER"));
+
+        assertTrue(withdrawn);
+        assertFalse(jwtTokenProvider.validateToken(oldToken));
+        assertTrue(jwtTokenProvider.validateToken(newToken));
+    }
+
+    @Test
+    @DisplayName("Should sign with the active RSA key, set its key ID and publish only its public part")
+    void givenRs256_whenGenerateToken_thenSetsKeyIdAndVerifies() throws Exception {
+        var keyPair = keyPair("RSA");
+        jwtTokenProvider.reload(properties.getSecret(), signing(JwtProperties.SigningAlgorithm.RS256,
+                signingKey("2026-10", keyPair, true)));
+
+        String token = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+
+        assertEquals("2026-10", Jwts.parser().verifyWith(keyPair.getPublic()).build()
+                .parseSignedClaims(token).getHeader().getKeyId());
+        assertTrue(jwtTokenProvider.validateToken(token));
+        var jwks = jwtTokenProvider.jsonWebKeySet().json();
+        assertTrue(jwks.contains("\"kid\":\"2026-10\""));
+        assertTrue(jwks.contains("\"alg\":\"RS256\""));
+        assertFalse(jwks.contains("\"d\""));
+    }
+
+    @Test
+    @DisplayName("Should keep verifying tokens of the previous key after the active key is rotated")
+    void givenRotatedKey_whenReload_thenVerifiesOldAndNewTokens() throws Exception {
+        var oldKey = keyPair("RSA");
+        var newKey = keyPair("RSA");
+        jwtTokenProvider.reload(properties.getSecret(), signing(JwtProperties.SigningAlgorithm.RS256,
+                signingKey("old", oldKey, true)));
+        String oldToken = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+        var oldETag = jwtTokenProvider.jsonWebKeySet().eTag();
+
+        var signing = signing(JwtProperties.SigningAlgorithm.RS256,
+                signingKey("old", oldKey, false), signingKey("new", newKey, true));
+        signing.setActiveKeyId("new");
+        var withdrawn = jwtTokenProvider.reload(properties.getSecret(), signing);
+        String newToken = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+
+        assertFalse(withdrawn);
+        assertTrue(jwtTokenProvider.validateToken(oldToken));
+        assertTrue(jwtTokenProvider.validateToken(newToken));
+        assertNotEquals(oldETag, jwtTokenProvider.jsonWebKeySet().eTag());
+        assertThrows(Exception.class, () -> Jwts.parser().verifyWith(oldKey.getPublic()).build().parseSignedClaims(newToken));
+    }
+
+    @Test
+    @DisplayName("Should sign with the active HMAC key and keep verifying tokens of the shared secret and other keys")
+    void givenHmacKeyring_whenGenerateToken_thenSetsKeyIdAndVerifiesAllKeys() {
+        String legacyToken = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+        var signing = signing(JwtProperties.SigningAlgorithm.HS256,
+                secretKey("2026-10", "3552afa25b4ebf0860695d78172f7fa79a0b2fc58bba7b41bfbcf8b63630d06c"));
+        jwtTokenProvider.reload(properties.getSecret(), signing);
+        String previousToken = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+
+        signing = signing(JwtProperties.SigningAlgorithm.HS256,
+                secretKey("2026-10", "3552afa25b4ebf0860695d78172f7fa79a0b2fc58bba7b41bfbcf8b63630d06c"),
+                secretKey("2026-11", "a8f5f167f44f4964e6c998dee827110c0b8a4b2b8e1c8f3d6b6a1f1e0e2b7c9d"));
+        signing.setActiveKeyId("2026-11");
+        var withdrawn = jwtTokenProvider.reload(properties.getSecret(), signing);
+        String token = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+
+        assertFalse(withdrawn);
+        assertEquals("2026-11", Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode("a8f5f167f44f4964e6c998dee827110c0b8a4b2b8e1c8f3d6b6a1f1e0e2b7c9d")))
+                .build()
+                .parseSignedClaims(token)
+                .getHeader()
+                .getKeyId());
+        assertTrue(jwtTokenProvider.validateToken(legacyToken));
+        assertTrue(jwtTokenProvider.validateToken(previousToken));
+        assertTrue(jwtTokenProvider.validateToken(token));
+        assertEquals("{\"keys\":[]}", jwtTokenProvider.jsonWebKeySet().json());
+    }
+
+    @Test
+    @DisplayName("Should reject tokens signed with a key that is no longer configured")
+    void givenRemovedKey_whenVerify_thenReturnsInvalidSignature() throws Exception {
+        var oldKey = keyPair("RSA");
+        jwtTokenProvider.reload(properties.getSecret(), signing(JwtProperties.SigningAlgorithm.RS256,
+                signingKey("old", oldKey, true)));
+        String token = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+
+        var withdrawn = jwtTokenProvider.reload(properties.getSecret(), signing(JwtProperties.SigningAlgorithm.RS256,
+                signingKey("new", keyPair("RSA"), true)));
+
+        assertTrue(withdrawn);
+        assertEquals(TokenVerification.FailureReason.INVALID_SIGNATURE, jwtTokenProvider.verify(token).failureReason());
+    }
+
+    @Test
+    @DisplayName("Should accept HMAC tokens issued before switching to EdDSA only while enabled")
+    void givenHmacToken_whenSwitchedToEdDsa_thenAcceptsOnlyWhileEnabled() throws Exception {
+        String hmacToken = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+        var signing = signing(JwtProperties.SigningAlgorithm.EDDSA, signingKey("ed", keyPair("Ed25519"), true));
+
+        jwtTokenProvider.reload(properties.getSecret(), signing);
+        String edToken = jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+
+        assertTrue(jwtTokenProvider.validateToken(hmacToken));
+        assertTrue(jwtTokenProvider.validateToken(edToken));
+
+        signing.setAcceptHmacTokens(false);
+        jwtTokenProvider.reload(properties.getSecret(), signing);
+
+        assertFalse(jwtTokenProvider.validateToken(hmacToken));
+        assertTrue(jwtTokenProvider.validateToken(edToken));
+    }
+
+    @Test
+    @DisplayName("Should publish an empty key set when signing with the shared secret")
+    void givenHs256_whenJsonWebKeySet_thenEmpty() {
+        assertEquals("{\"keys\":[]}", jwtTokenProvider.jsonWebKeySet().json());
+    }
+
+    @Test
+    @DisplayName("Should refuse an asymmetric algorithm without a private key")
+    void givenRs256WithoutPrivateKey_whenReload_thenThrowsException() throws Exception {
+        var signing = signing(JwtProperties.SigningAlgorithm.RS256, signingKey("public-only", keyPair("RSA"), false));
+
+        assertThrows(IllegalStateException.class, () -> jwtTokenProvider.reload(properties.getSecret(), signing));
+    }
+
+    private static JwtProperties.Signing signing(JwtProperties.SigningAlgorithm algorithm,
+                                                 JwtProperties.SigningKey... keys) {
+        var signing = new JwtProperties.Signing();
+        signing.setAlgorithm(algorithm);
+        signing.setKeys(List.of(keys));
+        return signing;
+    }
+
+    private static JwtProperties.SigningKey signingKey(String id, KeyPair keyPair, boolean withPrivateKey) {
+        var key = new JwtProperties.SigningKey();
+        key.setId(id);
+        key.setPublicKey(pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        if (withPrivateKey) {
+            key.setPrivateKey(pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        }
+        return key;
+    }
+
+    private static JwtProperties.SigningKey secretKey(String id, String secret) {
+        var key = new JwtProperties.SigningKey();
+        key.setId(id);
+        key.setSecret(secret);
+        return key;
+    }
+
+    private static KeyPair keyPair(String algorithm) throws NoSuchAlgorithmException {
+        var generator = KeyPairGenerator.getInstance(algorithm);
+        if (algorithm.equals("RSA")) {
+            generator.initialize(2048);
+        }
+        return generator.generateKeyPair();
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes()).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
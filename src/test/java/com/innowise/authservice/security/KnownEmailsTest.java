@@ -0,0 +1,244 @@
+package com.innowise.authservice.security;
+
+import com.innowise.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class KnownEmailsTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private KnownEmailsProperties properties;
+    private KnownEmails knownEmails;
+
+    @BeforeEach
+    void setUp() {
+        properties = new KnownEmailsProperties();
+        properties.setEnabled(true);
+        knownEmails = new KnownEmails(properties, userRepository, new TransactionTemplate(transactionManager),
+                new SimpleMeterRegistry(), nanoTime::get);
+    }
+
+    @Test
+    @DisplayName("Should treat every email as possibly registered until the filter is built")
+    void givenFilterNotBuilt_whenMightExist_thenReturnsTrue() {
+        // When, Then
+        assertTrue(knownEmails.mightExist("unknown@email.com"));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should tell registered emails from unknown ones after streaming all emails")
+    void givenBuiltFilter_whenMightExist_thenReturnsWhetherRegistered() {
+        // Given
+        givenRegistered("first@email.com", "second@email.com");
+
+        // When
+        knownEmails.onApplicationReady();
+
+        // Then
+        assertTrue(knownEmails.mightExist("first@email.com"));
+        assertTrue(knownEmails.mightExist("second@email.com"));
+        assertFalse(knownEmails.mightExist("unknown@email.com"));
+    }
+
+    @Test
+    @DisplayName("Should answer an email the database did not know from memory until it signs up")
+    void givenUnknownEmail_whenSignedUp_thenMightExist() {
+        // Given
+        givenRegistered("first@email.com");
+        knownEmails.onApplicationReady();
+
+        // When
+        knownEmails.markUnknown("first@email.com");
+        var beforeSignup = knownEmails.mightExist("first@email.com");
+        knownEmails.add("first@email.com");
+
+        // Then
+        assertFalse(beforeSignup);
+        assertTrue(knownEmails.mightExist("first@email.com"));
+    }
+
+    @Test
+    @DisplayName("Should add emails registered through other instances on sync")
+    void givenUserRegisteredElsewhere_whenSync_thenMightExist() {
+        // Given
+        givenRegistered("first@email.com");
+        knownEmails.onApplicationReady();
+        when(userRepository.findEmailsCreatedAfter(any())).thenReturn(List.of("second@email.com"));
+
+        // When
+        knownEmails.sync();
+
+        // Then
+        assertTrue(knownEmails.mightExist("second@email.com"));
+        verify(userRepository, times(1)).streamAllEmails();
+    }
+
+    @Test
+    @DisplayName("Should sync before answering an email missing from the filter once the miss sync interval passed")
+    void givenUserRegisteredElsewhereSinceLastSync_whenMightExist_thenReturnsTrue() {
+        // Given
+        givenRegistered("first@email.com");
+        knownEmails.onApplicationReady();
+        when(userRepository.findEmailsCreatedAfter(any())).thenReturn(List.of("second@email.com"));
+
+        // When
+        nanoTime.addAndGet(properties.getMissSyncInterval().toNanos());
+
+        // Then
+        assertTrue(knownEmails.mightExist("second@email.com"));
+        assertTrue(knownEmails.mightExist("second@email.com"));
+        verify(userRepository, times(1)).findEmailsCreatedAfter(any());
+    }
+
+    @Test
+    @DisplayName("Should reject misses without syncing until the miss sync interval passed")
+    void givenRecentSync_whenMightExistMisses_thenSyncsOncePerInterval() {
+        // Given
+        givenRegistered("first@email.com");
+        knownEmails.onApplicationReady();
+        when(userRepository.findEmailsCreatedAfter(any())).thenReturn(List.of());
+
+        // When
+        var beforeInterval = knownEmails.mightExist("unknown@email.com");
+        nanoTime.addAndGet(properties.getMissSyncInterval().toNanos());
+        var afterInterval = knownEmails.mightExist("unknown@email.com");
+        var secondMiss = knownEmails.mightExist("other@email.com");
+
+        // Then
+        assertFalse(beforeInterval);
+        assertFalse(afterInterval);
+        assertFalse(secondMiss);
+        verify(userRepository, times(1)).findEmailsCreatedAfter(any());
+    }
+
+    @Test
+    @DisplayName("Should reject an email the database did not know without syncing")
+    void givenUnknownEmail_whenSyncDue_thenRejectsWithoutSync() {
+        // Given
+        givenRegistered("first@email.com");
+        knownEmails.onApplicationReady();
+        knownEmails.markUnknown("first@email.com");
+
+        // When
+        nanoTime.addAndGet(properties.getMissSyncInterval().toNanos());
+        var result = knownEmails.mightExist("first@email.com");
+
+        // Then
+        assertFalse(result);
+        verify(userRepository, never()).findEmailsCreatedAfter(any());
+    }
+
+    @Test
+    @DisplayName("Should forget that an email was unknown once it is synced")
+    void givenUnknownEmailRegisteredElsewhere_whenSync_thenMightExist() {
+        // Given
+        givenRegistered("first@email.com");
+        knownEmails.onApplicationReady();
+        knownEmails.markUnknown("first@email.com");
+        when(userRepository.findEmailsCreatedAfter(any())).thenReturn(List.of("first@email.com"));
+
+        // When
+        knownEmails.sync();
+
+        // Then
+        assertTrue(knownEmails.mightExist("first@email.com"));
+        verify(userRepository, times(1)).findEmailsCreatedAfter(any());
+    }
+
+    @Test
+    @DisplayName("Should not sync again for misses that waited for a running sync")
+    void givenMissesDuringSync_whenMightExist_thenShareOneSync() throws Exception {
+        // Given
+        givenRegistered("first@email.com");
+        knownEmails.onApplicationReady();
+        nanoTime.addAndGet(properties.getMissSyncInterval().toNanos());
+        var syncing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(userRepository.findEmailsCreatedAfter(any())).thenAnswer(invocation -> {
+            syncing.countDown();
+            release.await();
+            return List.of();
+        });
+        var first = new Thread(() -> knownEmails.mightExist("unknown@email.com"));
+        var waiting = List.of(
+                new Thread(() -> knownEmails.mightExist("second@email.com")),
+                new Thread(() -> knownEmails.mightExist("third@email.com")));
+
+        // When
+        first.start();
+        syncing.await();
+        for (var thread : waiting) {
+            thread.start();
+            while (thread.getState() != Thread.State.BLOCKED) {
+                Thread.onSpinWait();
+            }
+        }
+        release.countDown();
+        first.join();
+        for (var thread : waiting) {
+            thread.join();
+        }
+
+        // Then
+        verify(userRepository, times(1)).findEmailsCreatedAfter(any());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the filter once deletions moved it far from its size")
+    void givenManyDeletions_whenSync_thenRebuilds() {
+        // Given
+        givenRegistered("first@email.com");
+        knownEmails.onApplicationReady();
+
+        // When
+        knownEmails.removed((int) properties.getMinimumCapacity());
+        knownEmails.sync();
+
+        // Then
+        verify(userRepository, times(2)).streamAllEmails();
+        verify(userRepository, never()).findEmailsCreatedAfter(any());
+    }
+
+    @Test
+    @DisplayName("Should treat every email as possibly registered when disabled")
+    void givenDisabled_whenMightExist_thenReturnsTrue() {
+        // Given
+        properties.setEnabled(false);
+
+        // When
+        knownEmails.onApplicationReady();
+        knownEmails.sync();
+
+        // Then
+        assertTrue(knownEmails.mightExist("unknown@email.com"));
+        verifyNoInteractions(userRepository);
+    }
+
+    private void givenRegistered(String... emails) {
+        when(userRepository.count()).thenReturn((long) emails.length);
+        when(userRepository.streamAllEmails()).thenAnswer(invocation -> Stream.of(emails));
+    }
+}
@@ -0,0 +1,182 @@
+package com.innowise.authservice.security;
+
+import com.innowise.authservice.exception.TooManyAttemptsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTest {
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private ThrottlingProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private LoginThrottle loginThrottle;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ThrottlingProperties();
+        properties.setAccount(new ThrottlingProperties.Limit(3, Duration.ofSeconds(10)));
+        properties.setAddress(new ThrottlingProperties.Limit(5, Duration.ofSeconds(1)));
+        meterRegistry = new SimpleMeterRegistry();
+        loginThrottle = new LoginThrottle(properties, meterRegistry, nanoTime::get);
+    }
+
+    @Test
+    @DisplayName("Should allow a burst up to the account capacity and reject further attempts")
+    void givenExhaustedAccount_whenAcquire_thenThrowsException() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0." + i);
+        }
+
+        // When
+        var exception = assertThrows(TooManyAttemptsException.class, () ->
+                loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "TEST@email.com ", "10.0.0.9"));
+
+        // Then
+        assertEquals(Duration.ofSeconds(10), exception.getRetryAfter());
+        assertEquals(1.0, meterRegistry.get("auth.throttle.rejections")
+                .tags("operation", "login", "limit", "account")
+                .counter()
+                .count());
+        assertDoesNotThrow(() ->
+                loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "other@email.com", "10.0.0.9"));
+    }
+
+    @Test
+    @DisplayName("Should allow one more attempt per refill interval")
+    void givenExhaustedAccount_whenRefillIntervalPassed_thenAllowsOneAttempt() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0." + i);
+        }
+
+        // When
+        nanoTime.addAndGet(Duration.ofSeconds(4).toNanos());
+        var early = assertThrows(TooManyAttemptsException.class, () ->
+                loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0.9"));
+        nanoTime.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        // Then
+        assertEquals(Duration.ofSeconds(6), early.getRetryAfter());
+        assertDoesNotThrow(() ->
+                loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0.9"));
+        assertThrows(TooManyAttemptsException.class, () ->
+                loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0.9"));
+    }
+
+    @Test
+    @DisplayName("Should reject attempts from an exhausted address without using up account attempts")
+    void givenExhaustedAddress_whenAcquire_thenThrowsExceptionAndKeepsAccountAttempts() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            loginThrottle.acquire(LoginThrottle.Operation.SIGNUP, "user" + i + "@email.com", "10.0.0.1");
+        }
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertThrows(TooManyAttemptsException.class, () ->
+                    loginThrottle.acquire(LoginThrottle.Operation.SIGNUP, "test@email.com", "10.0.0.1"));
+        }
+
+        // Then
+        assertEquals(3.0, meterRegistry.get("auth.throttle.rejections")
+                .tags("operation", "signup", "limit", "address")
+                .counter()
+                .count());
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0." + (i + 2));
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep an exhausted account limited while many other accounts are attempted")
+    void givenExhaustedAccount_whenOtherAccountsAttempted_thenStillThrowsException() {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0." + i);
+        }
+
+        // When
+        for (int i = 0; i < 200_000; i++) {
+            loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "user" + i + "@email.com", "10.1." + i);
+        }
+
+        // Then
+        assertThrows(TooManyAttemptsException.class, () ->
+                loginThrottle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0.9"));
+    }
+
+    @Test
+    @DisplayName("Should never allow more attempts than the capacity when called concurrently")
+    void givenConcurrentAttempts_whenAcquire_thenAllowsExactlyCapacity() throws Exception {
+        // Given
+        properties.setAccount(new ThrottlingProperties.Limit(50, Duration.ofHours(1)));
+        properties.setAddress(new ThrottlingProperties.Limit(10_000, Duration.ofHours(1)));
+        var throttle = new LoginThrottle(properties, new SimpleMeterRegistry(), nanoTime::get);
+        var executor = Executors.newFixedThreadPool(8);
+        Callable<Boolean> attempt = () -> {
+            try {
+                throttle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0.1");
+                return true;
+            } catch (TooManyAttemptsException e) {
+                return false;
+            }
+        };
+
+        // When
+        var results = new ArrayList<Future<Boolean>>();
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                results.add(executor.submit(attempt));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        int allowed = 0;
+        for (var result : results) {
+            allowed += result.get() ? 1 : 0;
+        }
+
+        // Then
+        assertEquals(50, allowed);
+    }
+
+    @Test
+    @DisplayName("Should allow every attempt when throttling is disabled")
+    void givenDisabledThrottling_whenAcquire_thenNeverThrows() {
+        // Given
+        properties.setEnabled(false);
+        var throttle = new LoginThrottle(properties, new SimpleMeterRegistry(), nanoTime::get);
+
+        // When, Then
+        for (int i = 0; i < 10; i++) {
+            assertDoesNotThrow(() -> throttle.acquire(LoginThrottle.Operation.LOGIN, "test@email.com", "10.0.0.1"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should not limit attempts per address by default, as the remote address may be the gateway's")
+    void givenDefaultAddressLimit_whenAcquireFromOneAddress_thenOnlyAccountLimitApplies() {
+        // Given
+        var defaults = new ThrottlingProperties();
+        var throttle = new LoginThrottle(defaults, new SimpleMeterRegistry(), nanoTime::get);
+
+        // When, Then
+        for (int i = 0; i < 1_000; i++) {
+            var email = "user" + i + "@email.com";
+            assertDoesNotThrow(() -> throttle.acquire(LoginThrottle.Operation.LOGIN, email, "10.0.0.1"));
+        }
+        assertFalse(defaults.getAddress().isEnabled());
+    }
+}
@@ -0,0 +1,158 @@
+package com.innowise.authservice.security;
+
+import com.innowise.authservice.support.JwtFixture;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SigningKeyReloaderTest {
+    private static final String NEXT_SECRET = "3552afa25b4ebf0860695d78172f7fa79a0b2fc58bba7b41bfbcf8b63630d06c";
+
+    @Mock
+    private TokenVerificationCache tokenVerificationCache;
+
+    @TempDir
+    private Path directory;
+
+    private MockEnvironment environment;
+    private JwtTokenProvider jwtTokenProvider;
+    private SigningKeyReloader signingKeyReloader;
+
+    @BeforeEach
+    void setUp() {
+        environment = new MockEnvironment().withProperty("spring.security.jwt.secret", JwtFixture.SECRET);
+        jwtTokenProvider = new JwtTokenProvider(JwtFixture.properties(), new SimpleMeterRegistry());
+        signingKeyReloader = new SigningKeyReloader(jwtTokenProvider, tokenVerificationCache, environment);
+    }
+
+    @Test
+    @DisplayName("Should reload the keys and drop cached verifications when the secret changes")
+    void givenChangedSecret_whenEnvironmentChanged_thenUsesNewKey() {
+        // Given
+        String oldToken = accessToken();
+        environment.setProperty("spring.security.jwt.secret", NEXT_SECRET);
+
+        // When
+        signingKeyReloader.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("spring.security.jwt.secret")));
+
+        // Then
+        assertFalse(jwtTokenProvider.validateToken(oldToken));
+        assertTrue(jwtTokenProvider.validateToken(accessToken()));
+        verify(tokenVerificationCache, times(1)).invalidateAll();
+    }
+
+    @Test
+    @DisplayName("Should keep the current keys when an unrelated property changes")
+    void givenUnrelatedPropertyChange_whenEnvironmentChanged_thenKeepsKeys() {
+        // Given
+        String token = accessToken();
+        environment.setProperty("spring.security.jwt.secret", NEXT_SECRET);
+
+        // When
+        signingKeyReloader.onEnvironmentChange(new EnvironmentChangeEvent(Set.of("logging.level.com.innowise")));
+
+        // Then
+        assertTrue(jwtTokenProvider.validateToken(token));
+        verifyNoInteractions(tokenVerificationCache);
+    }
+
+    @Test
+    @DisplayName("Should switch to the key from the keyring file and keep cached verifications")
+    void givenNewKeyInKeyringFile_whenPoll_thenSignsWithItAndKeepsCache() throws IOException {
+        // Given
+        String legacyToken = accessToken();
+        var keyring = writeKeyring("""
+                active-key-id: 2026-11
+                keys:
+                  - id: 2026-11
+                    secret: %s
+                """.formatted(NEXT_SECRET));
+        environment.setProperty("spring.security.jwt.signing.keyring-file", keyring.toUri().toString());
+
+        // When
+        signingKeyReloader.pollKeyringFile();
+        String token = accessToken();
+
+        // Then
+        assertEquals("2026-11", Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(NEXT_SECRET)))
+                .build()
+                .parseSignedClaims(token)
+                .getHeader()
+                .getKeyId());
+        assertTrue(jwtTokenProvider.validateToken(legacyToken));
+        assertTrue(jwtTokenProvider.validateToken(token));
+        verifyNoInteractions(tokenVerificationCache);
+    }
+
+    @Test
+    @DisplayName("Should drop cached verifications once a key is removed from the keyring file")
+    void givenKeyRemovedFromKeyringFile_whenPoll_thenRejectsItsTokens() throws IOException {
+        // Given
+        var keyring = writeKeyring("""
+                keys:
+                  - id: 2026-10
+                    secret: %s
+                """.formatted(NEXT_SECRET));
+        environment.setProperty("spring.security.jwt.signing.keyring-file", keyring.toUri().toString());
+        signingKeyReloader.pollKeyringFile();
+        String token = accessToken();
+
+        // When
+        signingKeyReloader.pollKeyringFile();
+        Files.writeString(keyring, "");
+        signingKeyReloader.pollKeyringFile();
+
+        // Then
+        assertFalse(jwtTokenProvider.validateToken(token));
+        verify(tokenVerificationCache, times(1)).invalidateAll();
+    }
+
+    @Test
+    @DisplayName("Should keep the current keys when the keyring file is invalid")
+    void givenInvalidKeyringFile_whenPoll_thenKeepsKeys() throws IOException {
+        // Given
+        String token = accessToken();
+        var keyring = writeKeyring("""
+                active-key-id: missing
+                """);
+        environment.setProperty("spring.security.jwt.signing.keyring-file", keyring.toUri().toString());
+
+        // When
+        signingKeyReloader.pollKeyringFile();
+
+        // Then
+        assertTrue(jwtTokenProvider.validateToken(token));
+        assertTrue(jwtTokenProvider.validateToken(accessToken()));
+        verifyNoInteractions(tokenVerificationCache);
+    }
+
+    private String accessToken() {
+        return jwtTokenProvider.generateAccessToken(UUID.randomUUID(), Map.of("role", "ROLE_USER"));
+    }
+
+    private Path writeKeyring(String content) throws IOException {
+        return Files.writeString(directory.resolve("keyring.yaml"), content);
+    }
+}
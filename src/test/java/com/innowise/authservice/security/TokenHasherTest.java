@@ -0,0 +1,62 @@
+package com.innowise.authservice.security;
+
+import io.jsonwebtoken.io.Decoders;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenHasherTest {
+    private static final byte[] KEY = Decoders.BASE64.decode("34c0ef79a25ea6979814b3341c3529484fd8168b831f58fac94e8f04a8bc7ee8");
+
+    private final TokenHasher tokenHasher = new TokenHasher(KEY);
+
+    @Test
+    @DisplayName("Should produce the raw bytes of the previous hex HMAC")
+    void givenToken_whenHash_thenMatchesHmacSha256() {
+        var token = UUID.randomUUID().toString();
+
+        var hash = tokenHasher.hash(token);
+
+        assertEquals(32, hash.length);
+        assertArrayEquals(new HmacUtils(HmacAlgorithms.HMAC_SHA_256, KEY).hmac(token), hash);
+    }
+
+    @Test
+    @DisplayName("Should hash correctly when called concurrently")
+    void givenConcurrentCallers_whenHash_thenEveryHashIsCorrect() throws Exception {
+        var reference = new HmacUtils(HmacAlgorithms.HMAC_SHA_256, KEY);
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var tasks = new ArrayList<Callable<Boolean>>();
+            for (int i = 0; i < 64; i++) {
+                var tokens = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+                var expected = List.of(reference.hmac(tokens.get(0)), reference.hmac(tokens.get(1)));
+                tasks.add(() -> {
+                    for (int j = 0; j < 500; j++) {
+                        if (!Arrays.equals(expected.get(j % 2), tokenHasher.hash(tokens.get(j % 2)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            }
+
+            for (Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.innowise.authservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+    private TokenRevocationList revocationList;
+
+    @BeforeEach
+    void setUp() {
+        var properties = new JwtProperties();
+        properties.setAccessTokenTtl(900L);
+        revocationList = new TokenRevocationList(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should reject a revoked token and keep accepting other tokens of the subject")
+    void givenRevokedToken_whenIsRevoked_thenOnlyThatTokenIsRevoked() {
+        var userId = UUID.randomUUID();
+        var revoked = accessToken(userId, Instant.now());
+        var other = accessToken(userId, Instant.now());
+
+        revocationList.revoke(revoked);
+
+        assertTrue(revocationList.isRevoked(revoked));
+        assertFalse(revocationList.isRevoked(other));
+    }
+
+    @Test
+    @DisplayName("Should reject tokens issued to a revoked subject before the revocation only")
+    void givenRevokedSubject_whenIsRevoked_thenTokensIssuedBeforeAreRevoked() {
+        var userId = UUID.randomUUID();
+        var issuedBefore = accessToken(userId, Instant.now().minusSeconds(60));
+        var issuedAfter = accessToken(userId, Instant.now().plusSeconds(60));
+        var otherUser = accessToken(UUID.randomUUID(), Instant.now().minusSeconds(60));
+
+        revocationList.revokeSubject(userId.toString());
+
+        assertTrue(revocationList.isRevoked(issuedBefore));
+        assertFalse(revocationList.isRevoked(issuedAfter));
+        assertFalse(revocationList.isRevoked(otherUser));
+    }
+
+    @Test
+    @DisplayName("Should not keep tokens that are already expired")
+    void givenExpiredToken_whenRevoke_thenIsNotKept() {
+        var expired = TokenVerification.verified(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                "ROLE_USER", Instant.now().minusSeconds(120), Instant.now().minusSeconds(60));
+
+        revocationList.revoke(expired);
+
+        assertFalse(revocationList.isRevoked(expired));
+    }
+
+    @Test
+    @DisplayName("Should keep every revoked token however many are revoked")
+    void givenManyRevokedTokens_whenIsRevoked_thenFirstIsStillRevoked() {
+        var first = accessToken(UUID.randomUUID(), Instant.now());
+        revocationList.revoke(first);
+
+        for (int i = 0; i < 200_000; i++) {
+            revocationList.revoke(accessToken(UUID.randomUUID(), Instant.now()));
+        }
+
+        assertTrue(revocationList.isRevoked(first));
+    }
+
+    private static TokenVerification accessToken(UUID userId, Instant issuedAt) {
+        return TokenVerification.verified(UUID.randomUUID().toString(), userId.toString(),
+                "ROLE_USER", issuedAt, Instant.now().plusSeconds(900));
+    }
+}
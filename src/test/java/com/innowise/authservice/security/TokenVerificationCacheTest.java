@@ -0,0 +1,101 @@
+package com.innowise.authservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenVerificationCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private TokenVerificationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TokenVerificationCache(new JwtProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should verify access token once and serve repeated lookups from cache")
+    void givenAccessToken_whenGetTwice_thenVerifiesOnce() {
+        var calls = new AtomicInteger();
+        var verification = accessToken(UUID.randomUUID(), Instant.now().plusSeconds(900));
+        Function<String, TokenVerification> verifier = token -> {
+            calls.incrementAndGet();
+            return verification;
+        };
+
+        assertSame(verification, cache.get("TOKEN", verifier));
+        assertSame(verification, cache.get("TOKEN", verifier));
+
+        assertEquals(1, calls.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Should not cache refresh tokens and failed verifications")
+    void givenNotAccessToken_whenGetTwice_thenVerifiesEveryTime() {
+        var calls = new AtomicInteger();
+        Function<String, TokenVerification> refreshVerifier = token -> {
+            calls.incrementAndGet();
+            return TokenVerification.verified(UUID.randomUUID().toString(),
+                    UUID.randomUUID().toString(), null, Instant.now(), Instant.now().plusSeconds(900));
+        };
+        Function<String, TokenVerification> failingVerifier = token -> {
+            calls.incrementAndGet();
+            return TokenVerification.failed(TokenVerification.FailureReason.MALFORMED);
+        };
+
+        cache.get("REFRESH", refreshVerifier);
+        cache.get("REFRESH", refreshVerifier);
+        cache.get("INVALID", failingVerifier);
+        cache.get("INVALID", failingVerifier);
+
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should not serve verification past token expiry")
+    void givenExpiredEntry_whenGet_thenVerifiesAgain() {
+        var calls = new AtomicInteger();
+        Function<String, TokenVerification> verifier = token -> {
+            calls.incrementAndGet();
+            return accessToken(UUID.randomUUID(), Instant.now().minusSeconds(1));
+        };
+
+        cache.get("TOKEN", verifier);
+        cache.get("TOKEN", verifier);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    @DisplayName("Should drop cached verifications of invalidated subject")
+    void givenCachedSubject_whenInvalidateSubject_thenVerifiesAgain() {
+        var userId = UUID.randomUUID();
+        var calls = new AtomicInteger();
+        Function<String, TokenVerification> verifier = token -> {
+            calls.incrementAndGet();
+            return accessToken(userId, Instant.now().plusSeconds(900));
+        };
+
+        cache.get("TOKEN", verifier);
+        cache.invalidateSubjects(Set.of(userId.toString()));
+        cache.get("TOKEN", verifier);
+
+        assertEquals(2, calls.get());
+    }
+
+    private static TokenVerification accessToken(UUID userId, Instant expiresAt) {
+        return TokenVerification.verified(UUID.randomUUID().toString(),
+                userId.toString(), "ROLE_USER", Instant.now(), expiresAt);
+    }
+}
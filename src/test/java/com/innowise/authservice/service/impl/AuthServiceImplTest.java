@@ -1,32 +1,46 @@
 package com.innowise.authservice.service.impl;
 
 import com.innowise.authservice.dto.*;
-import com.innowise.authservice.entity.RefreshToken;
 import com.innowise.authservice.entity.User;
 import com.innowise.authservice.exception.InvalidRefreshTokenException;
 import com.innowise.authservice.exception.InvalidUserCredentialsException;
 import com.innowise.authservice.exception.UserAlreadyExistsException;
 import com.innowise.authservice.mapper.UserMapper;
-import com.innowise.authservice.repository.RefreshTokenRepository;
 import com.innowise.authservice.repository.UserRepository;
+import com.innowise.authservice.security.JwtProperties;
+import com.innowise.authservice.security.KnownEmails;
+import com.innowise.authservice.security.TokenVerification;
 import com.innowise.authservice.service.TokenService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(MockitoExtension.class)
 class AuthServiceImplTest {
+    private static final TokenVerification VALID_ACCESS_TOKEN =
+            TokenVerification.verified(UUID.randomUUID().toString(),
+                    UUID.randomUUID().toString(), "ROLE_USER", Instant.now(), Instant.now().plusSeconds(900));
+
+    private static final TokenVerification VALID_REFRESH_TOKEN =
+            TokenVerification.verified(UUID.randomUUID().toString(),
+                    UUID.randomUUID().toString(), null, Instant.now(), Instant.now().plusSeconds(10000));
+
     @Mock
     private UserMapper userMapper;
 
@@ -37,10 +51,16 @@ class AuthServiceImplTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private RefreshTokenRepository refreshTokenRepository;
+    private TokenService tokenService;
+
+    @Spy
+    private JwtProperties jwtProperties = new JwtProperties();
 
     @Mock
-    private TokenService tokenService;
+    private ExecutorService tokenValidationExecutor;
+
+    @Mock
+    private KnownEmails knownEmails;
 
     @InjectMocks
     private AuthServiceImpl authService;
@@ -67,10 +87,10 @@ class AuthServiceImplTest {
         );
 
         // When
-        when(userRepository.existsByEmail(request.email())).thenReturn(false);
         when(userMapper.toUser(request)).thenReturn(user);
         when(passwordEncoder.encode(request.password())).thenReturn("HASHED_PASSWORD");
-        when(userRepository.save(user)).thenReturn(user);
+        when(userRepository.insertIfEmailAbsent(any(), any(), eq(request.email()), eq("HASHED_PASSWORD"),
+                eq("ROLE_USER"))).thenReturn(Optional.of(user));
         when(userMapper.toUserResponse(user)).thenReturn(userResponse);
 
         var response = authService.saveCredentials(request);
@@ -81,11 +101,13 @@ class AuthServiceImplTest {
         assertNotEquals(request.password(), user.getPassword());
         assertEquals(user.getRole(), response.role());
 
-        verify(userRepository, times(1)).existsByEmail(request.email());
         verify(userMapper, times(1)).toUser(request);
         verify(passwordEncoder, times(1)).encode(request.password());
-        verify(userRepository, times(1)).save(user);
+        verify(userRepository, times(1)).insertIfEmailAbsent(any(), any(), eq(request.email()),
+                eq("HASHED_PASSWORD"), eq("ROLE_USER"));
+        verify(userRepository, never()).save(any());
         verify(userMapper, times(1)).toUserResponse(user);
+        verify(knownEmails, times(1)).add(request.email());
     }
 
     @Test
@@ -98,17 +120,19 @@ class AuthServiceImplTest {
         );
 
         // When
-        when(userRepository.existsByEmail(request.email())).thenReturn(true);
+        var user = new User();
+        user.setEmail(request.email());
+        when(userMapper.toUser(request)).thenReturn(user);
+        when(passwordEncoder.encode(request.password())).thenReturn("HASHED_PASSWORD");
+        when(userRepository.insertIfEmailAbsent(any(), any(), eq(request.email()), any(), any()))
+                .thenReturn(Optional.empty());
 
         assertThrows(UserAlreadyExistsException.class, () -> authService.saveCredentials(request));
 
         // Then
-        verify(userRepository, times(1)).existsByEmail(request.email());
-        verify(userRepository, never()).existsById(any());
-        verify(userMapper, never()).toUser(any());
-        verify(passwordEncoder, never()).encode(any());
         verify(userRepository, never()).save(any());
         verify(userMapper, never()).toUserResponse(any());
+        verify(knownEmails, times(1)).add(request.email());
     }
 
     @Test
@@ -124,6 +148,7 @@ class AuthServiceImplTest {
         user.setPassword("HASHED_PASSWORD");
 
         // When
+        when(knownEmails.mightExist(request.email())).thenReturn(true);
         when(userRepository.findByEmail(request.email())).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(request.password(), user.getPassword())).thenReturn(true);
         when(tokenService.generateAuthResponse(user)).thenReturn(new AuthResponse("ACCESS", "REFRESH"));
@@ -136,9 +161,39 @@ class AuthServiceImplTest {
 
         verify(userRepository, times(1)).findByEmail(request.email());
         verify(passwordEncoder, times(1)).matches(request.password(), user.getPassword());
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository, never()).updatePassword(any(), any());
         verify(tokenService, times(1)).generateAuthResponse(user);
     }
 
+    @Test
+    @DisplayName("Should re-encode password on login when stored hash uses another cost")
+    void givenOutdatedPasswordHash_whenLogin_thenReEncodesPassword() {
+        // Given
+        var request = new LoginRequest(
+                "TEST@EMAIL",
+                "PASSWORD"
+        );
+
+        var user = new User();
+        user.setId(UUID.randomUUID());
+        user.setPassword("OUTDATED_HASH");
+
+        // When
+        when(knownEmails.mightExist(request.email())).thenReturn(true);
+        when(userRepository.findByEmail(request.email())).thenReturn(Optional.of(user));
+        when(passwordEncoder.matches(request.password(), "OUTDATED_HASH")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("OUTDATED_HASH")).thenReturn(true);
+        when(passwordEncoder.encode(request.password())).thenReturn("CURRENT_HASH");
+        when(tokenService.generateAuthResponse(user)).thenReturn(new AuthResponse("ACCESS", "REFRESH"));
+
+        authService.login(request);
+
+        // Then
+        assertEquals("CURRENT_HASH", user.getPassword());
+        verify(userRepository, times(1)).updatePassword(user.getId(), "CURRENT_HASH");
+    }
+
     @Test
     @DisplayName("Should throw an exception when user does not exist")
     void givenNotExistingUser_whenLogin_thenThrowsException() {
@@ -149,13 +204,39 @@ class AuthServiceImplTest {
         );
 
         // When
+        when(knownEmails.mightExist(request.email())).thenReturn(true);
         when(userRepository.findByEmail(request.email())).thenReturn(Optional.empty());
+        when(passwordEncoder.encode(any())).thenReturn("DUMMY_HASH");
 
         // Then
         assertThrows(InvalidUserCredentialsException.class, () -> authService.login(request));
 
         verify(userRepository, times(1)).findByEmail(request.email());
-        verify(passwordEncoder, never()).matches(any(), any());
+        verify(knownEmails, times(1)).markUnknown(request.email());
+        verify(passwordEncoder, times(1)).matches(request.password(), "DUMMY_HASH");
+        verify(tokenService, never()).generateAuthResponse(any());
+    }
+
+    @Test
+    @DisplayName("Should reject an unregistered email without querying the database")
+    void givenUnknownEmail_whenLogin_thenThrowsExceptionWithoutQuery() {
+        // Given
+        var request = new LoginRequest(
+                "UNKNOWN@EMAIL",
+                "PASSWORD"
+        );
+
+        // When
+        when(knownEmails.mightExist(request.email())).thenReturn(false);
+        when(passwordEncoder.encode(any())).thenReturn("DUMMY_HASH");
+
+        assertThrows(InvalidUserCredentialsException.class, () -> authService.login(request));
+        assertThrows(InvalidUserCredentialsException.class, () -> authService.login(request));
+
+        // Then
+        verify(userRepository, never()).findByEmail(any());
+        verify(passwordEncoder, times(1)).encode(any());
+        verify(passwordEncoder, times(2)).matches(request.password(), "DUMMY_HASH");
         verify(tokenService, never()).generateAuthResponse(any());
     }
 
@@ -172,6 +253,7 @@ class AuthServiceImplTest {
         user.setPassword("HASHED_PASSWORD");
 
         // When
+        when(knownEmails.mightExist(request.email())).thenReturn(true);
         when(userRepository.findByEmail(request.email())).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(request.password(), user.getPassword())).thenReturn(false);
 
@@ -184,21 +266,15 @@ class AuthServiceImplTest {
     }
 
     @Test
-    @DisplayName("Should refresh token when refresh token exists")
+    @DisplayName("Should rotate refresh token when refresh token is valid")
     void givenValidRefreshToken_whenRefresh_thenReturnsAuthResponse() {
         // Given
         var request = new RefreshTokenRequest("REFRESH_TOKEN");
-        var user = new User();
-        var refreshToken = new RefreshToken();
-        refreshToken.setIsRevoked(false);
-        refreshToken.setExpiresAt(Instant.now().plusSeconds(10000));
-        refreshToken.setUser(user);
 
         // When
-        when(tokenService.validate(request.refreshToken())).thenReturn(true);
-        when(tokenService.hashToken(request.refreshToken())).thenReturn("HASHED_REFRESH_TOKEN");
-        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.of(refreshToken));
-        when(tokenService.generateAuthResponse(user)).thenReturn(new AuthResponse("ACCESS", "REFRESH"));
+        when(tokenService.verify(request.refreshToken())).thenReturn(VALID_REFRESH_TOKEN);
+        when(tokenService.rotate(request.refreshToken(), VALID_REFRESH_TOKEN))
+                .thenReturn(Optional.of(new AuthResponse("ACCESS", "REFRESH")));
 
         var response = authService.refresh(request);
 
@@ -206,10 +282,9 @@ class AuthServiceImplTest {
         assertEquals("ACCESS", response.accessToken());
         assertEquals("REFRESH", response.refreshToken());
 
-        verify(tokenService, times(1)).validate(request.refreshToken());
-        verify(tokenService, times(1)).hashToken(request.refreshToken());
-        verify(refreshTokenRepository, times(1)).findByTokenHash(any());
-        verify(tokenService, times(1)).generateAuthResponse(user);
+        verify(tokenService, times(1)).verify(request.refreshToken());
+        verify(tokenService, times(1)).rotate(request.refreshToken(), VALID_REFRESH_TOKEN);
+        verify(tokenService, never()).generateAuthResponse(any());
     }
 
     @Test
@@ -219,59 +294,45 @@ class AuthServiceImplTest {
         var request = new RefreshTokenRequest("REFRESH_TOKEN");
 
         // When
-        when(tokenService.validate(request.refreshToken())).thenReturn(false);
+        when(tokenService.verify(request.refreshToken()))
+                .thenReturn(TokenVerification.failed(TokenVerification.FailureReason.EXPIRED));
 
         // Then
         assertThrows(InvalidRefreshTokenException.class, () -> authService.refresh(request));
 
-        verify(tokenService, times(1)).validate(request.refreshToken());
-        verify(tokenService, never()).hashToken(any());
-        verify(refreshTokenRepository, never()).findByTokenHash(any());
-        verify(tokenService, never()).generateAuthResponse(any());
+        verify(tokenService, times(1)).verify(request.refreshToken());
+        verify(tokenService, never()).rotate(any(), any());
     }
 
     @Test
-    @DisplayName("Should throw an exception when refresh token revoked")
-    void givenRevokedRefreshToken_whenRefresh_thenThrowsException() {
+    @DisplayName("Should throw an exception when access token is used as refresh token")
+    void givenAccessToken_whenRefresh_thenThrowsException() {
         // Given
-        var request = new RefreshTokenRequest("REFRESH_TOKEN");
-        var refreshToken = new RefreshToken();
-        refreshToken.setIsRevoked(true);
+        var request = new RefreshTokenRequest("ACCESS_TOKEN");
 
         // When
-        when(tokenService.validate(request.refreshToken())).thenReturn(true);
-        when(tokenService.hashToken(request.refreshToken())).thenReturn("HASHED_REFRESH_TOKEN");
-        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.of(refreshToken));
+        when(tokenService.verify(request.refreshToken())).thenReturn(VALID_ACCESS_TOKEN);
 
         // Then
         assertThrows(InvalidRefreshTokenException.class, () -> authService.refresh(request));
 
-        verify(tokenService, times(1)).validate(request.refreshToken());
-        verify(tokenService, times(1)).hashToken(request.refreshToken());
-        verify(refreshTokenRepository, times(1)).findByTokenHash(any());
-        verify(tokenService, never()).generateAuthResponse(any());
+        verify(tokenService, never()).rotate(any(), any());
     }
 
     @Test
-    @DisplayName("Should throw an exception when refresh token expired in database (not in payload)")
-    void givenExpiredRefreshToken_whenRefresh_thenThrowsException() {
+    @DisplayName("Should throw an exception when refresh token is revoked, expired in database or already rotated")
+    void givenUsedRefreshToken_whenRefresh_thenThrowsException() {
         // Given
         var request = new RefreshTokenRequest("REFRESH_TOKEN");
-        var refreshToken = new RefreshToken();
-        refreshToken.setIsRevoked(false);
-        refreshToken.setExpiresAt(Instant.now().minusSeconds(10000));
 
         // When
-        when(tokenService.validate(request.refreshToken())).thenReturn(true);
-        when(tokenService.hashToken(request.refreshToken())).thenReturn("HASHED_REFRESH_TOKEN");
-        when(refreshTokenRepository.findByTokenHash(any())).thenReturn(Optional.of(refreshToken));
+        when(tokenService.verify(request.refreshToken())).thenReturn(VALID_REFRESH_TOKEN);
+        when(tokenService.rotate(request.refreshToken(), VALID_REFRESH_TOKEN)).thenReturn(Optional.empty());
 
         // Then
         assertThrows(InvalidRefreshTokenException.class, () -> authService.refresh(request));
 
-        verify(tokenService, times(1)).validate(request.refreshToken());
-        verify(tokenService, times(1)).hashToken(request.refreshToken());
-        verify(refreshTokenRepository, times(1)).findByTokenHash(any());
+        verify(tokenService, times(1)).rotate(request.refreshToken(), VALID_REFRESH_TOKEN);
         verify(tokenService, never()).generateAuthResponse(any());
     }
 
@@ -282,15 +343,14 @@ class AuthServiceImplTest {
         var request = new ValidateTokenRequest("TOKEN");
 
         // When
-        when(tokenService.validate(request.token())).thenReturn(true);
-        when(tokenService.isAccessToken(request.token())).thenReturn(true);
+        when(tokenService.verify(request.token())).thenReturn(VALID_ACCESS_TOKEN);
 
         var response = authService.validate(request);
 
         // Then
         assertTrue(response);
 
-        verify(tokenService, times(1)).validate(request.token());
+        verify(tokenService, times(1)).verify(request.token());
     }
 
     @Test
@@ -300,15 +360,14 @@ class AuthServiceImplTest {
         var request = new ValidateTokenRequest("TOKEN");
 
         // When
-        when(tokenService.validate(request.token())).thenReturn(true);
-        when(tokenService.isAccessToken(request.token())).thenReturn(false);
+        when(tokenService.verify(request.token())).thenReturn(VALID_REFRESH_TOKEN);
 
         var response = authService.validate(request);
 
         // Then
         assertFalse(response);
 
-        verify(tokenService, times(1)).validate(request.token());
+        verify(tokenService, times(1)).verify(request.token());
     }
 
     @Test
@@ -316,17 +375,17 @@ class AuthServiceImplTest {
     void givenValidId_whenDelete_thenReturnsTrue() {
         // Given
         var id = UUID.randomUUID();
-        var user = new User();
 
         // When
-        when(userRepository.findByUserId(id)).thenReturn(Optional.of(user));
+        when(userRepository.deleteAllByUserIds(List.of(id))).thenReturn(List.of(id));
 
         var response = authService.delete(id);
 
         // Then
         assertTrue(response);
-        verify(userRepository, times(1)).findByUserId(id);
-        verify(userRepository, times(1)).delete(user);
+        verify(userRepository, times(1)).deleteAllByUserIds(List.of(id));
+        verify(tokenService, times(1)).invalidateUserTokens(List.of(id));
+        verify(knownEmails, times(1)).removed(1);
     }
 
     @Test
@@ -336,13 +395,121 @@ class AuthServiceImplTest {
         var id = UUID.randomUUID();
 
         // When
-        when(userRepository.findByUserId(id)).thenReturn(Optional.empty());
+        when(userRepository.deleteAllByUserIds(List.of(id))).thenReturn(List.of());
 
         var response = authService.delete(id);
 
         // Then
         assertFalse(response);
-        verify(userRepository, times(1)).findByUserId(id);
         verify(userRepository, never()).delete(any());
+        verify(tokenService, never()).invalidateUserTokens(any());
+    }
+
+    @Test
+    @DisplayName("Should delete users in chunks and return the deleted IDs")
+    void givenManyIds_whenDeleteAll_thenDeletesInChunks() {
+        // Given
+        var ids = Stream.generate(UUID::randomUUID).limit(2_500).toList();
+        var missing = ids.get(42);
+
+        // When
+        when(userRepository.deleteAllByUserIds(any())).thenAnswer(invocation -> invocation
+                .<List<UUID>>getArgument(0)
+                .stream()
+                .filter(id -> !id.equals(missing))
+                .toList());
+
+        var deleted = authService.deleteAll(ids);
+
+        // Then
+        assertEquals(2_499, deleted.size());
+        assertFalse(deleted.contains(missing));
+        verify(userRepository, times(3)).deleteAllByUserIds(any());
+        verify(tokenService, times(3)).invalidateUserTokens(any());
+    }
+
+    @Test
+    @DisplayName("Should revoke both tokens on logout")
+    void givenTokens_whenLogout_thenRevokesBoth() {
+        // Given
+        var request = new LogoutRequest("ACCESS_TOKEN", "REFRESH_TOKEN");
+
+        // When
+        authService.logout(request);
+
+        // Then
+        verify(tokenService, times(1)).revokeSession("ACCESS_TOKEN", "REFRESH_TOKEN");
+    }
+
+    @Test
+    @DisplayName("Should verify small token batch on the calling thread")
+    void givenSmallBatch_whenVerifyAll_thenVerifiesInline() {
+        // Given
+        var failed = TokenVerification.failed(TokenVerification.FailureReason.MALFORMED);
+
+        // When
+        when(tokenService.verify("ACCESS")).thenReturn(VALID_ACCESS_TOKEN);
+        when(tokenService.verify("INVALID")).thenReturn(failed);
+
+        var results = authService.verifyAll(List.of("ACCESS", "INVALID"));
+
+        // Then
+        assertEquals(List.of(VALID_ACCESS_TOKEN, failed), results);
+        verifyNoInteractions(tokenValidationExecutor);
+    }
+
+    @Test
+    @DisplayName("Should verify large token batch in chunks and keep the token order")
+    void givenLargeBatch_whenVerifyAll_thenVerifiesChunksInOrder() {
+        // Given
+        jwtProperties.getBatchValidation().setChunkSize(2);
+        var tokens = List.of("T1", "T2", "T3", "T4", "T5");
+        var expected = tokens.stream()
+                .map(token -> TokenVerification.verified(token, UUID.randomUUID().toString(), "ROLE_USER",
+                        Instant.now(), Instant.now().plusSeconds(900)))
+                .toList();
+
+        // When
+        for (int i = 0; i < tokens.size(); i++) {
+            when(tokenService.verify(tokens.get(i))).thenReturn(expected.get(i));
+        }
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(tokenValidationExecutor).execute(any());
+
+        var results = authService.verifyAll(tokens);
+
+        // Then
+        assertEquals(expected, results);
+        verify(tokenValidationExecutor, times(2)).execute(any());
+    }
+
+    @Test
+    @DisplayName("Should reject token batch larger than the limit")
+    void givenTooLargeBatch_whenVerifyAll_thenThrowsException() {
+        // Given
+        jwtProperties.getBatchValidation().setMaxBatchSize(2);
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> authService.verifyAll(List.of("T1", "T2", "T3")));
+        verify(tokenService, never()).verify(any());
+    }
+
+    @Test
+    @DisplayName("Should reject token batch when the validation pool is saturated")
+    void givenSaturatedPool_whenVerifyAll_thenThrowsException() {
+        // Given
+        jwtProperties.getBatchValidation().setChunkSize(2);
+        var tokens = List.of("T1", "T2", "T3", "T4", "T5");
+
+        // When
+        doNothing()
+                .doThrow(new RejectedExecutionException())
+                .when(tokenValidationExecutor).execute(any());
+
+        // Then
+        assertThrows(RejectedExecutionException.class, () -> authService.verifyAll(tokens));
+        verify(tokenService, never()).verify(any());
     }
 }
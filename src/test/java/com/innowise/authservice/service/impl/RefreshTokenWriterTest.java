@@ -0,0 +1,230 @@
+package com.innowise.authservice.service.impl;
+
+import com.innowise.authservice.entity.RefreshToken;
+import com.innowise.authservice.repository.RefreshTokenRepository;
+import com.innowise.authservice.security.RefreshTokenWritesProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenWriterTest {
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<RefreshToken>> batchCaptor;
+
+    private RefreshTokenWritesProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private RefreshTokenWriter refreshTokenWriter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RefreshTokenWritesProperties();
+        properties.setMaxBatchSize(3);
+        properties.setMaxDelay(Duration.ofSeconds(10));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (refreshTokenWriter != null) {
+            refreshTokenWriter.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should insert the token directly when batching is disabled")
+    void givenBatchingDisabled_whenSave_thenSavesDirectly() {
+        // Given
+        refreshTokenWriter = writer();
+        var token = token();
+
+        // When
+        refreshTokenWriter.save(token);
+
+        // Then
+        verify(refreshTokenRepository, times(1)).save(token);
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    @DisplayName("Should insert concurrent tokens in one transaction once the batch is full")
+    void givenConcurrentSaves_whenBatchFull_thenInsertsThemTogether() throws Exception {
+        // Given
+        properties.setBatched(true);
+        refreshTokenWriter = writer();
+        var tokens = List.of(token(), token(), token());
+
+        // When
+        var saves = tokens.stream()
+                .map(token -> CompletableFuture.runAsync(() -> refreshTokenWriter.save(token)))
+                .toList();
+        CompletableFuture.allOf(saves.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(refreshTokenRepository, times(1)).saveAll(batchCaptor.capture());
+        assertEquals(3, batchCaptor.getValue().size());
+        tokens.forEach(token -> assertTrue(batchCaptor.getValue().stream().anyMatch(saved -> saved == token)));
+        verify(refreshTokenRepository, never()).save(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(3.0, meterRegistry.get("auth.refresh.token.write.batch.size").summary().totalAmount());
+    }
+
+    @Test
+    @DisplayName("Should write a partial batch once its maximum delay has passed")
+    void givenSingleSave_whenMaxDelayPassed_thenInsertsIt() throws Exception {
+        // Given
+        properties.setBatched(true);
+        properties.setMaxDelay(Duration.ofMillis(5));
+        refreshTokenWriter = writer();
+        var token = token();
+
+        // When
+        CompletableFuture.runAsync(() -> refreshTokenWriter.save(token)).get(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(refreshTokenRepository, times(1)).saveAll(List.of(token));
+    }
+
+    @Test
+    @DisplayName("Should fail only the login whose token cannot be inserted when a batch fails")
+    void givenFailingBatch_whenSave_thenInsertsTokensOneByOne() throws Exception {
+        // Given
+        properties.setBatched(true);
+        refreshTokenWriter = writer();
+        var good = token();
+        var bad = token();
+        var other = token();
+        when(refreshTokenRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(refreshTokenRepository.save(any())).thenAnswer(invocation -> {
+            if (invocation.getArgument(0) == bad) {
+                throw new DataIntegrityViolationException("duplicate");
+            }
+            return invocation.getArgument(0);
+        });
+
+        // When
+        var goodSave = CompletableFuture.runAsync(() -> refreshTokenWriter.save(good));
+        var badSave = CompletableFuture.runAsync(() -> refreshTokenWriter.save(bad));
+        var otherSave = CompletableFuture.runAsync(() -> refreshTokenWriter.save(other));
+
+        // Then
+        assertDoesNotThrow(() -> goodSave.get(5, TimeUnit.SECONDS));
+        assertDoesNotThrow(() -> otherSave.get(5, TimeUnit.SECONDS));
+        var exception = assertThrows(ExecutionException.class, () -> badSave.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DataIntegrityViolationException.class, exception.getCause());
+        verify(refreshTokenRepository, times(1)).save(same(good));
+        verify(refreshTokenRepository, times(1)).save(same(other));
+    }
+
+    @Test
+    @DisplayName("Should keep writing after a batch fails with an error")
+    void givenBatchFailingWithError_whenSave_thenInsertsTokensOneByOneAndKeepsWriting() throws Exception {
+        // Given
+        properties.setBatched(true);
+        properties.setMaxDelay(Duration.ofMillis(5));
+        refreshTokenWriter = writer();
+        var first = token();
+        var second = token();
+        when(refreshTokenRepository.saveAll(anyList())).thenThrow(new StackOverflowError());
+
+        // When
+        CompletableFuture.runAsync(() -> refreshTokenWriter.save(first)).get(5, TimeUnit.SECONDS);
+        CompletableFuture.runAsync(() -> refreshTokenWriter.save(second)).get(5, TimeUnit.SECONDS);
+
+        // Then
+        verify(refreshTokenRepository, times(1)).save(same(first));
+        verify(refreshTokenRepository, times(1)).save(same(second));
+    }
+
+    @Test
+    @DisplayName("Should insert a token itself when the busy writer did not take it in time")
+    void givenBusyWriter_whenWriteTimeoutPassed_thenInsertsQueuedTokenDirectly() throws Exception {
+        // Given
+        properties.setBatched(true);
+        properties.setMaxBatchSize(1);
+        properties.setWriteTimeout(Duration.ofMillis(200));
+        refreshTokenWriter = writer();
+        var writing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(refreshTokenRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return invocation.getArgument(0);
+        });
+        var taken = token();
+        var queued = token();
+
+        // When
+        var takenSave = CompletableFuture.runAsync(() -> refreshTokenWriter.save(taken));
+        writing.await();
+        var queuedSave = CompletableFuture.runAsync(() -> refreshTokenWriter.save(queued));
+
+        // Then
+        try {
+            assertDoesNotThrow(() -> queuedSave.get(5, TimeUnit.SECONDS));
+            var exception = assertThrows(ExecutionException.class, () -> takenSave.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+            verify(refreshTokenRepository, times(1)).save(same(queued));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should insert queued tokens when closed")
+    void givenQueuedToken_whenClosed_thenInsertsIt() throws Exception {
+        // Given
+        properties.setBatched(true);
+        refreshTokenWriter = writer();
+        var token = token();
+        var save = CompletableFuture.runAsync(() -> refreshTokenWriter.save(token));
+        Thread.sleep(100);
+        verify(refreshTokenRepository, never()).saveAll(anyList());
+
+        // When
+        refreshTokenWriter.close();
+
+        // Then
+        save.get(5, TimeUnit.SECONDS);
+        verify(refreshTokenRepository, times(1)).saveAll(List.of(token));
+    }
+
+    private RefreshTokenWriter writer() {
+        return new RefreshTokenWriter(properties, refreshTokenRepository, new TransactionTemplate(transactionManager),
+                meterRegistry);
+    }
+
+    private static RefreshToken token() {
+        return RefreshToken.builder()
+                .tokenHash(new byte[]{1, 2, 3})
+                .expiresAt(Instant.now().plusSeconds(120))
+                .build();
+    }
+}
@@ -1,9 +1,18 @@
 package com.innowise.authservice.service.impl;
 
 import com.innowise.authservice.entity.User;
+import com.innowise.authservice.exception.TokenOwnerMismatchException;
 import com.innowise.authservice.repository.RefreshTokenRepository;
+import com.innowise.authservice.repository.UserRepository;
+import com.innowise.authservice.security.IssuedToken;
+import com.innowise.authservice.security.JwtProperties;
 import com.innowise.authservice.security.JwtTokenProvider;
-import org.apache.commons.codec.digest.HmacUtils;
+import com.innowise.authservice.security.TokenHasher;
+import com.innowise.authservice.security.TokenRevocationList;
+import com.innowise.authservice.security.TokenVerification;
+import com.innowise.authservice.security.TokenVerificationCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,7 +24,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 @ExtendWith(MockitoExtension.class)
 class TokenServiceImplTest {
@@ -23,11 +38,29 @@ class TokenServiceImplTest {
     private JwtTokenProvider jwtTokenProvider;
 
     @Mock
-    private HmacUtils hmacUtils;
+    private TokenHasher tokenHasher;
 
     @Mock
     private RefreshTokenRepository refreshTokenRepository;
 
+    @Mock
+    private RefreshTokenWriter refreshTokenWriter;
+
+    @Mock
+    private TokenVerificationCache tokenVerificationCache;
+
+    @Mock
+    private TokenRevocationList tokenRevocationList;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JwtProperties jwtProperties;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     @Spy
     private TokenServiceImpl tokenService;
@@ -42,7 +75,8 @@ class TokenServiceImplTest {
 
         // When
         when(jwtTokenProvider.generateAccessToken(eq(user.getUserId()), any())).thenReturn("ACCESS");
-        when(jwtTokenProvider.generateRefreshToken(user.getUserId())).thenReturn("REFRESH");
+        when(jwtTokenProvider.generateRefreshToken(user.getUserId()))
+                .thenReturn(new IssuedToken("REFRESH", Instant.now().plusSeconds(120)));
 
         var response = tokenService.generateAuthResponse(user);
 
@@ -52,8 +86,58 @@ class TokenServiceImplTest {
 
         verify(jwtTokenProvider, times(1)).generateAccessToken(eq(user.getUserId()), any());
         verify(jwtTokenProvider, times(1)).generateRefreshToken(user.getUserId());
-        verify(refreshTokenRepository, times(1)).save(any());
+        verify(refreshTokenWriter, times(1)).save(any());
         verify(tokenService, times(1)).hashToken("REFRESH");
+        verify(jwtTokenProvider, never()).verify(any());
+    }
+
+    @Test
+    @DisplayName("Should rotate refresh token and issue access token for its owner")
+    void givenActiveRefreshToken_whenRotate_thenReturnsAuthResponse() {
+        // Given
+        var userId = UUID.randomUUID();
+        var verification = TokenVerification.verified(UUID.randomUUID().toString(),
+                userId.toString(), null, Instant.now(), Instant.now().plusSeconds(120));
+        var expiresAt = Instant.now().plusSeconds(240);
+        var owner = new RefreshTokenRepository.TokenOwner(userId, "ROLE_USER");
+
+        // When
+        when(jwtTokenProvider.generateRefreshToken(userId)).thenReturn(new IssuedToken("NEW_REFRESH", expiresAt));
+        var oldHash = new byte[]{1};
+        var newHash = new byte[]{2};
+        when(tokenHasher.hash("OLD_REFRESH")).thenReturn(oldHash);
+        when(tokenHasher.hash("NEW_REFRESH")).thenReturn(newHash);
+        when(refreshTokenRepository.rotate(eq(oldHash), eq(newHash), eq(expiresAt), any()))
+                .thenReturn(Optional.of(owner));
+        when(jwtTokenProvider.generateAccessToken(userId, Map.of("role", "ROLE_USER"))).thenReturn("ACCESS");
+
+        var response = tokenService.rotate("OLD_REFRESH", verification);
+
+        // Then
+        assertTrue(response.isPresent());
+        assertEquals("ACCESS", response.get().accessToken());
+        assertEquals("NEW_REFRESH", response.get().refreshToken());
+        verify(refreshTokenWriter, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should not issue access token when refresh token was already rotated")
+    void givenUsedRefreshToken_whenRotate_thenReturnsEmpty() {
+        // Given
+        var userId = UUID.randomUUID();
+        var verification = TokenVerification.verified(UUID.randomUUID().toString(),
+                userId.toString(), null, Instant.now(), Instant.now().plusSeconds(120));
+
+        // When
+        when(jwtTokenProvider.generateRefreshToken(userId))
+                .thenReturn(new IssuedToken("NEW_REFRESH", Instant.now().plusSeconds(240)));
+        when(refreshTokenRepository.rotate(any(), any(), any(), any())).thenReturn(Optional.empty());
+
+        var response = tokenService.rotate("OLD_REFRESH", verification);
+
+        // Then
+        assertTrue(response.isEmpty());
+        verify(jwtTokenProvider, never()).generateAccessToken(any(), any());
     }
 
     @Test
@@ -63,13 +147,14 @@ class TokenServiceImplTest {
         var token = "TOKEN";
 
         // When
-        when(hmacUtils.hmacHex(token)).thenReturn("HASHED_TOKEN");
+        var hash = new byte[]{1, 2, 3};
+        when(tokenHasher.hash(token)).thenReturn(hash);
 
         var hashedToken = tokenService.hashToken(token);
 
         //Then
-        assertEquals("HASHED_TOKEN", hashedToken);
-        verify(hmacUtils, times(1)).hmacHex(token);
+        assertArrayEquals(hash, hashedToken);
+        verify(tokenHasher, times(1)).hash(token);
     }
 
     @Test
@@ -79,12 +164,153 @@ class TokenServiceImplTest {
         var token = "TOKEN";
 
         // When
-        when(jwtTokenProvider.validateToken(token)).thenReturn(true);
+        when(tokenVerificationCache.get(eq(token), any()))
+                .thenAnswer(invocation -> invocation.<Function<String, TokenVerification>>getArgument(1).apply(token));
+        when(jwtTokenProvider.verify(token))
+                .thenReturn(TokenVerification.verified(UUID.randomUUID().toString(),
+                        UUID.randomUUID().toString(), "ROLE_USER", Instant.now(), Instant.now()));
 
         var isValid = tokenService.validate(token);
 
         //Then
         assertTrue(isValid);
-        verify(jwtTokenProvider, times(1)).validateToken(token);
+        verify(jwtTokenProvider, times(1)).verify(token);
+    }
+
+    @Test
+    @DisplayName("Should reject revoked token even when its verification is cached")
+    void givenRevokedToken_whenVerify_thenReturnsRevoked() {
+        // Given
+        var token = "TOKEN";
+        var verification = TokenVerification.verified(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), "ROLE_USER", Instant.now(), Instant.now().plusSeconds(900));
+
+        // When
+        when(tokenVerificationCache.get(eq(token), any())).thenReturn(verification);
+        when(tokenRevocationList.isRevoked(verification)).thenReturn(true);
+
+        var result = tokenService.verify(token);
+
+        // Then
+        assertFalse(result.valid());
+        assertEquals(TokenVerification.FailureReason.REVOKED, result.failureReason());
+        assertEquals(1, meterRegistry.get("auth.token.validations").tag("outcome", "revoked").counter().count());
+        verify(userRepository, never()).existsByUserId(any());
+    }
+
+    @Test
+    @DisplayName("Should reject access token of deleted user in database validation mode")
+    void givenDatabaseModeAndDeletedUser_whenVerify_thenReturnsRevoked() {
+        // Given
+        var token = "TOKEN";
+        var userId = UUID.randomUUID();
+        var verification = TokenVerification.verified(UUID.randomUUID().toString(),
+                userId.toString(), "ROLE_USER", Instant.now(), Instant.now().plusSeconds(900));
+
+        // When
+        when(tokenVerificationCache.get(eq(token), any())).thenReturn(verification);
+        when(jwtProperties.getValidationMode()).thenReturn(JwtProperties.ValidationMode.DATABASE);
+        when(userRepository.existsByUserId(userId)).thenReturn(false);
+
+        var result = tokenService.verify(token);
+
+        // Then
+        assertEquals(TokenVerification.FailureReason.REVOKED, result.failureReason());
+    }
+
+    @Test
+    @DisplayName("Should put revoked access token on the revocation list")
+    void givenAccessTokenAndInvalidRefreshToken_whenRevokeSession_thenAddsAccessTokenToRevocationList() {
+        // Given
+        var verification = TokenVerification.verified(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), "ROLE_USER", Instant.now(), Instant.now().plusSeconds(900));
+
+        // When
+        when(jwtTokenProvider.verify("ACCESS")).thenReturn(verification);
+        when(jwtTokenProvider.verify("REFRESH"))
+                .thenReturn(TokenVerification.failed(TokenVerification.FailureReason.EXPIRED));
+
+        tokenService.revokeSession("ACCESS", "REFRESH");
+
+        // Then
+        verify(tokenRevocationList, times(1)).revoke(verification);
+        verify(refreshTokenRepository, never()).revokeByTokenHash(any());
+    }
+
+    @Test
+    @DisplayName("Should revoke refresh token in database")
+    void givenRefreshTokenAndInvalidAccessToken_whenRevokeSession_thenRevokesInDatabase() {
+        // Given
+        var verification = TokenVerification.verified(UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), null, Instant.now(), Instant.now().plusSeconds(900));
+
+        // When
+        when(jwtTokenProvider.verify("ACCESS"))
+                .thenReturn(TokenVerification.failed(TokenVerification.FailureReason.EXPIRED));
+        when(jwtTokenProvider.verify("REFRESH")).thenReturn(verification);
+        var hash = new byte[]{1, 2, 3};
+        when(tokenHasher.hash("REFRESH")).thenReturn(hash);
+
+        tokenService.revokeSession("ACCESS", "REFRESH");
+
+        // Then
+        verify(refreshTokenRepository, times(1)).revokeByTokenHash(hash);
+        verify(tokenRevocationList, never()).revoke(any());
+    }
+
+    @Test
+    @DisplayName("Should revoke both tokens of a session issued to the same user")
+    void givenTokensOfSameUser_whenRevokeSession_thenRevokesBoth() {
+        // Given
+        var userId = UUID.randomUUID().toString();
+        var access = TokenVerification.verified(UUID.randomUUID().toString(), userId, "ROLE_USER",
+                Instant.now(), Instant.now().plusSeconds(900));
+        var refresh = TokenVerification.verified(UUID.randomUUID().toString(), userId, null,
+                Instant.now(), Instant.now().plusSeconds(900));
+        var hash = new byte[]{1, 2, 3};
+
+        // When
+        when(jwtTokenProvider.verify("ACCESS")).thenReturn(access);
+        when(jwtTokenProvider.verify("REFRESH")).thenReturn(refresh);
+        when(tokenHasher.hash("REFRESH")).thenReturn(hash);
+
+        tokenService.revokeSession("ACCESS", "REFRESH");
+
+        // Then
+        verify(tokenRevocationList, times(1)).revoke(access);
+        verify(refreshTokenRepository, times(1)).revokeByTokenHash(hash);
+    }
+
+    @Test
+    @DisplayName("Should reject a session whose tokens were issued to different users")
+    void givenTokensOfDifferentUsers_whenRevokeSession_thenThrowsException() {
+        // Given
+        var access = TokenVerification.verified(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                "ROLE_USER", Instant.now(), Instant.now().plusSeconds(900));
+        var refresh = TokenVerification.verified(UUID.randomUUID().toString(), UUID.randomUUID().toString(),
+                null, Instant.now(), Instant.now().plusSeconds(900));
+
+        // When
+        when(jwtTokenProvider.verify("ACCESS")).thenReturn(access);
+        when(jwtTokenProvider.verify("REFRESH")).thenReturn(refresh);
+
+        // Then
+        assertThrows(TokenOwnerMismatchException.class, () -> tokenService.revokeSession("ACCESS", "REFRESH"));
+        verify(tokenRevocationList, never()).revoke(any());
+        verify(refreshTokenRepository, never()).revokeByTokenHash(any());
+    }
+
+    @Test
+    @DisplayName("Should revoke tokens and invalidate cached verifications of deleted user")
+    void givenUserId_whenInvalidateUserTokens_thenInvalidatesCache() {
+        // Given
+        var userId = UUID.randomUUID();
+
+        // When
+        tokenService.invalidateUserTokens(List.of(userId));
+
+        // Then
+        verify(tokenRevocationList, times(1)).revokeSubject(userId.toString());
+        verify(tokenVerificationCache, times(1)).invalidateSubjects(Set.of(userId.toString()));
     }
 }
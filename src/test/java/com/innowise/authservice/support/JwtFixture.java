@@ -0,0 +1,27 @@
+package com.innowise.authservice.support;
+
+import com.innowise.authservice.security.JwtProperties;
+
+/**
+ * JWT configuration shared by the benchmarks, the load test and tests that need a real signing key.
+ */
+public final class JwtFixture {
+    /**
+     * Base64 HMAC-SHA256 secret the fixture tokens are signed with.
+     */
+    public static final String SECRET = "34c0ef79a25ea6979814b3341c3529484fd8168b831f58fac94e8f04a8bc7ee8";
+
+    private JwtFixture() {
+    }
+
+    /**
+     * @return properties signing with {@link #SECRET} and the default token lifetimes of the service
+     */
+    public static JwtProperties properties() {
+        var properties = new JwtProperties();
+        properties.setSecret(SECRET);
+        properties.setAccessTokenTtl(900L);
+        properties.setRefreshTokenTtl(604800L);
+        return properties;
+    }
+}